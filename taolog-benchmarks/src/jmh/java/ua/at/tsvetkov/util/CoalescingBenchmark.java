@@ -0,0 +1,85 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A burst of short same-tag lines written directly and through a {@link CoalescingWriter}. The stub writer burns some CPU per write
+ * in place of the write to the log daemon and counts the writes, reported as "writes" per second next to the messages per second.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class CoalescingBenchmark {
+
+    private static final String TAG = " ▪ (MainActivity.java:42) onResume";
+    private static final String LINE = "⇢ onResume()";
+    /**
+     * About a microsecond, in the range of a logd write on a device
+     */
+    private static final long WRITE_COST_TOKENS = 500;
+
+    @Benchmark
+    public void direct(DaemonWrites daemon) {
+        daemon.write(android.util.Log.VERBOSE, TAG, LINE);
+    }
+
+    @Benchmark
+    public void coalesced(Coalesced coalesced, DaemonWrites daemon) {
+        coalesced.writer.write(android.util.Log.VERBOSE, TAG, LINE);
+    }
+
+    @State(Scope.Thread)
+    public static class Coalesced {
+
+        CoalescingWriter writer;
+
+        @Setup
+        public void setUp(DaemonWrites daemon) {
+            writer = new CoalescingWriter(daemon, 10, TimeUnit.MILLISECONDS);
+        }
+
+        @TearDown
+        public void tearDown() {
+            writer.close();
+        }
+
+    }
+
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class DaemonWrites implements LogWriter {
+
+        public long writes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            writes = 0;
+        }
+
+        @Override
+        public void write(int priority, String tag, String message) {
+            writes++;
+            Blackhole.consumeCPU(WRITE_COST_TOKENS);
+        }
+
+        @Override
+        public void flush() {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,40 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The first call in a fresh JVM, the class initialization of Log, Format, LogConfig and ObjectFormatter included. Every fork is a new
+ * JVM and measures one call only, what an application pays on its first log line in Application.onCreate.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(20)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class ColdStartBenchmark {
+
+    @Benchmark
+    public void firstLog() {
+        Log.d("First message");
+    }
+
+    @Benchmark
+    public void firstAlignedLog() {
+        Log.setAlignNewLines(true, "ua.at.tsvetkov.logdemo");
+        Log.d("First\nmessage");
+    }
+
+    @Benchmark
+    public String firstObjectFormatter() {
+        return ObjectFormatter.toString(new int[]{1, 2, 3});
+    }
+
+}
@@ -0,0 +1,67 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Formatting of an already tagged message: the outline, the new line alignment and the throwable stack trace.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class FormatBenchmark {
+
+    @Param({"1", "10", "500"})
+    public int lines;
+
+    @Param({"false", "true"})
+    public boolean isAlignNewLines;
+
+    private LogConfig config;
+    private String message;
+    private Throwable throwable;
+
+    @Setup
+    public void setUp() {
+        config = LogConfig.builder().setAlignNewLines(isAlignNewLines).setPackageName("ua.at.tsvetkov.logdemo").build();
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < lines; i++) {
+            if (i > 0) {
+                sb.append('\n');
+            }
+            sb.append("Line ").append(i).append(" of the benchmark message");
+        }
+        message = sb.toString();
+        throwable = createThrowable(20);
+    }
+
+    @Benchmark
+    public String formattedMessage() {
+        return Format.getFormattedMessage(config, message, null);
+    }
+
+    @Benchmark
+    public String formattedMessageWithTitle() {
+        return Format.getFormattedMessage(config, message, "Title");
+    }
+
+    @Benchmark
+    public String formattedThrowable() {
+        return Format.getFormattedThrowable(config, message, throwable);
+    }
+
+    private static Throwable createThrowable(int depth) {
+        if (depth > 0) {
+            return createThrowable(depth - 1);
+        }
+        return new IllegalStateException("Benchmark", new RuntimeException("Cause"));
+    }
+
+}
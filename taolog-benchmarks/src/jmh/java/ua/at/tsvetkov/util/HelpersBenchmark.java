@@ -0,0 +1,105 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The formatting of the Log helpers (objl, objn, map, list, array, hex, xml) and of the @ToLog arguments, without the tag and output.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class HelpersBenchmark {
+
+    private static final int SIZE = 100;
+
+    private final Sample sample = new Sample();
+    private final Map<String, Integer> map = new LinkedHashMap<>();
+    private final List<String> list = new ArrayList<>();
+    private final int[] ints = new int[SIZE];
+    private final String[] strings = new String[SIZE];
+    private final byte[] bytes = new byte[256];
+    private final FormatLimits limits = new FormatLimits(200, 10, 10);
+    private final String xml = "<user id=\"42\"><name>John</name><roles><role>admin</role><role>editor</role></roles></user>";
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < SIZE; i++) {
+            map.put("key" + i, i);
+            list.add("item" + i);
+            ints[i] = i;
+            strings[i] = "element" + i;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+    }
+
+    @Benchmark
+    public String objl() {
+        return Format.objl(sample);
+    }
+
+    @Benchmark
+    public String objn() {
+        return Format.objn(sample);
+    }
+
+    @Benchmark
+    public String map() {
+        return Format.map(map);
+    }
+
+    @Benchmark
+    public String list() {
+        return Format.list(list);
+    }
+
+    @Benchmark
+    public String arrayOfInts() {
+        return Format.array(ints);
+    }
+
+    @Benchmark
+    public String arrayOfObjects() {
+        return Format.array(strings);
+    }
+
+    @Benchmark
+    public String hex() {
+        return Format.hex(bytes);
+    }
+
+    @Benchmark
+    public String xml() {
+        return Format.xml(xml);
+    }
+
+    @Benchmark
+    public String toLogArgument() {
+        return ObjectFormatter.toString(list, limits);
+    }
+
+    static class Sample {
+
+        private final int id = 42;
+        private final String name = "John";
+        private final long createdAt = 1522400000000L;
+        private final double rating = 4.5;
+        private final boolean isActive = true;
+        private final int[] scores = {1, 2, 3, 4, 5};
+
+    }
+
+}
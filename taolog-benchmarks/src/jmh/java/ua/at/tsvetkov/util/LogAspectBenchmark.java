@@ -0,0 +1,54 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A @ToLog method call not woven, woven with the logs disabled (only the if() pointcut is checked) and woven with the logs enabled.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LogAspectBenchmark {
+
+    private final WovenTarget target = new WovenTarget();
+    private int value;
+
+    @Benchmark
+    public int unwoven() {
+        return target.plain(value++);
+    }
+
+    @Benchmark
+    public int wovenDisabled(Disabled disabled) {
+        return target.compute(value++);
+    }
+
+    @Benchmark
+    public int wovenEnabled() {
+        return target.compute(value++);
+    }
+
+    @State(Scope.Benchmark)
+    public static class Disabled {
+
+        @Setup
+        public void setUp() {
+            Log.setDisabled(true);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Log.setDisabled(false);
+        }
+
+    }
+
+}
@@ -0,0 +1,86 @@
+package ua.at.tsvetkov.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole Log.d call, the stack walk for the tag included, at several depths of the caller stack. Compared with the extended tag of
+ * Log.d(Object, String), the fixed tag of a {@link Logger} and the disabled and filtered calls.
+ */
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class LogBenchmark {
+
+    private static final String MESSAGE = "User 42 signed in";
+
+    @Param({"1", "10", "50"})
+    public int depth;
+
+    private final Logger logger = Log.forClass(LogBenchmark.class);
+    private final Logger filteredLogger = Log.forClass(LogBenchmark.class);
+
+    @Setup
+    public void setUp() {
+        filteredLogger.setLevel(android.util.Log.INFO);
+    }
+
+    @Benchmark
+    public void logD() {
+        call(depth, null);
+    }
+
+    @Benchmark
+    public void logDWithObject() {
+        call(depth, this);
+    }
+
+    @Benchmark
+    public void loggerD() {
+        logger.d(MESSAGE);
+    }
+
+    @Benchmark
+    public void loggerDFiltered() {
+        filteredLogger.d(MESSAGE);
+    }
+
+    @Benchmark
+    public void logDDisabled(Disabled disabled) {
+        call(depth, null);
+    }
+
+    private static void call(int remaining, Object obj) {
+        if (remaining > 1) {
+            call(remaining - 1, obj);
+        } else if (obj == null) {
+            Log.d(MESSAGE);
+        } else {
+            Log.d(obj, MESSAGE);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Disabled {
+
+        @Setup
+        public void setUp() {
+            Log.setDisabled(true);
+        }
+
+        @TearDown
+        public void tearDown() {
+            Log.setDisabled(false);
+        }
+
+    }
+
+}
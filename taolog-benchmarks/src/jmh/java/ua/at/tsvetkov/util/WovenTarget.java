@@ -0,0 +1,63 @@
+package ua.at.tsvetkov.util;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.runtime.internal.AroundClosure;
+import org.aspectj.runtime.internal.Conversions;
+import org.aspectj.runtime.reflect.Factory;
+
+import java.lang.reflect.Modifier;
+
+import ua.at.tsvetkov.annotations.ToLog;
+
+/**
+ * A @ToLog method woven by hand the same way ajc weaves {@link LogAspect}: the static join point created once, the if() pointcut
+ * tested first, then the join point, the around closure and the advice. The benchmarks need no weaver this way. {@link #plain(int)}
+ * is the same method not woven.
+ */
+public class WovenTarget {
+
+    private static final LogAspect ASPECT = new LogAspect();
+    private static final JoinPoint.StaticPart COMPUTE;
+
+    static {
+        Factory factory = new Factory("WovenTarget.java", WovenTarget.class);
+        COMPUTE = factory.makeSJP(JoinPoint.METHOD_EXECUTION, factory.makeMethodSig(Modifier.PUBLIC, "compute", WovenTarget.class,
+                new Class[]{int.class}, new String[]{"value"}, new Class[0], int.class), 40);
+    }
+
+    @ToLog
+    public int compute(int value) {
+        if (!LogAspect.tracing()) {
+            return computeBody(value);
+        }
+        JoinPoint joinPoint = Factory.makeJP(COMPUTE, this, this, Conversions.intObject(value));
+        try {
+            return Conversions.intValue(ASPECT.logAndExecute(
+                    new ComputeClosure(new Object[]{this, Conversions.intObject(value), joinPoint}).linkClosureAndJoinPoint()));
+        } catch (Throwable throwable) {
+            throw new IllegalStateException(throwable);
+        }
+    }
+
+    public int plain(int value) {
+        return computeBody(value);
+    }
+
+    private int computeBody(int value) {
+        return value * 31 + (value >>> 3);
+    }
+
+    private static final class ComputeClosure extends AroundClosure {
+
+        ComputeClosure(Object[] state) {
+            super(state);
+        }
+
+        @Override
+        public Object run(Object[] state) throws Throwable {
+            return Conversions.intObject(((WovenTarget) state[0]).computeBody(Conversions.intValue(state[1])));
+        }
+
+    }
+
+}
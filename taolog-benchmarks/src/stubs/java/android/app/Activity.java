@@ -0,0 +1,26 @@
+package android.app;
+
+import android.content.Context;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Activity extends Context {
+
+    public FragmentManager getFragmentManager() {
+        return null;
+    }
+
+    public String getLocalClassName() {
+        return getClass().getSimpleName();
+    }
+
+    public boolean isFinishing() {
+        return false;
+    }
+
+    public boolean isChangingConfigurations() {
+        return false;
+    }
+
+}
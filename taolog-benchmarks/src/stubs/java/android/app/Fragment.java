@@ -0,0 +1,12 @@
+package android.app;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Fragment {
+
+    public Activity getActivity() {
+        return null;
+    }
+
+}
@@ -0,0 +1,23 @@
+package android.os;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Build {
+
+    public static class VERSION {
+
+        public static final int SDK_INT = 27;
+
+    }
+
+    public static class VERSION_CODES {
+
+        public static final int ICE_CREAM_SANDWICH = 14;
+        public static final int JELLY_BEAN_MR2 = 18;
+        public static final int N = 24;
+        public static final int O = 26;
+
+    }
+
+}
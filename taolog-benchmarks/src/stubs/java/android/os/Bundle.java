@@ -0,0 +1,8 @@
+package android.os;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Bundle {
+
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Process {
+
+    public static int myPid() {
+        return 1;
+    }
+
+    public static int myTid() {
+        return (int) Thread.currentThread().getId();
+    }
+
+}
@@ -0,0 +1,16 @@
+package android.os;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public final class Trace {
+
+    public static void beginSection(String sectionName) {
+
+    }
+
+    public static void endSection() {
+
+    }
+
+}
@@ -0,0 +1,12 @@
+package android.support.v4.app;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class Fragment {
+
+    public FragmentActivity getActivity() {
+        return null;
+    }
+
+}
@@ -0,0 +1,14 @@
+package android.support.v4.app;
+
+import android.app.Activity;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class FragmentActivity extends Activity {
+
+    public FragmentManager getSupportFragmentManager() {
+        return null;
+    }
+
+}
@@ -0,0 +1,40 @@
+package android.support.v4.app;
+
+import android.content.Context;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public abstract class FragmentManager {
+
+    public interface BackStackEntry {
+
+        String getName();
+
+    }
+
+    public abstract static class FragmentLifecycleCallbacks {
+
+        public void onFragmentAttached(FragmentManager fm, Fragment f, Context context) {
+
+        }
+
+        public void onFragmentDetached(FragmentManager fm, Fragment f) {
+
+        }
+
+        public void onFragmentResumed(FragmentManager fm, Fragment f) {
+
+        }
+
+    }
+
+    public abstract int getBackStackEntryCount();
+
+    public abstract BackStackEntry getBackStackEntryAt(int index);
+
+    public abstract void registerFragmentLifecycleCallbacks(FragmentLifecycleCallbacks callback, boolean recursive);
+
+    public abstract void unregisterFragmentLifecycleCallbacks(FragmentLifecycleCallbacks callback);
+
+}
@@ -0,0 +1,10 @@
+package android.support.v7.app;
+
+import android.support.v4.app.FragmentActivity;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. Not packaged, the benchmarks and the JVM tests only.
+ */
+public class AppCompatActivity extends FragmentActivity {
+
+}
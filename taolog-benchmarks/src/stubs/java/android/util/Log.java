@@ -0,0 +1,52 @@
+package android.util;
+
+/**
+ * JVM stub of the Android class, only what taolog uses. The messages are discarded, so the benchmarks measure the formatting only.
+ * {@link #isLoggable(String, int)} answers as a device without "log.tag.*" properties, INFO and above.
+ */
+public final class Log {
+
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+    public static final int ASSERT = 7;
+
+    private Log() {
+
+    }
+
+    public static int v(String tag, String msg) {
+        return println(VERBOSE, tag, msg);
+    }
+
+    public static int d(String tag, String msg) {
+        return println(DEBUG, tag, msg);
+    }
+
+    public static int i(String tag, String msg) {
+        return println(INFO, tag, msg);
+    }
+
+    public static int w(String tag, String msg) {
+        return println(WARN, tag, msg);
+    }
+
+    public static int e(String tag, String msg) {
+        return println(ERROR, tag, msg);
+    }
+
+    public static int wtf(String tag, String msg) {
+        return println(ASSERT, tag, msg);
+    }
+
+    public static int println(int priority, String tag, String msg) {
+        return msg.length();
+    }
+
+    public static boolean isLoggable(String tag, int level) {
+        return level >= INFO;
+    }
+
+}
@@ -0,0 +1,251 @@
+package ua.at.tsvetkov.util;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Allocation budgets of the logger hot paths, measured by the thread allocation counter after the JIT warm-up. The disabled and
+ * filtered calls must not allocate a single byte in {@link #MEASURED_CALLS} calls, the formatting paths get a budget per call with
+ * some headroom, so a new feature can't quietly add garbage to them.
+ */
+public class AllocationBudgetTest {
+
+    private static final int WARMUP_CALLS = 50000;
+    private static final int MEASURED_CALLS = 10000;
+    private static final int ROUNDS = 5;
+    private static final String MESSAGE = "User 42 signed in";
+
+    private static final Logger LOGGER = Log.forClass(AllocationBudgetTest.class);
+    private static final WovenTarget TARGET = new WovenTarget();
+    private static final Object OWNER = new Object();
+    private static com.sun.management.ThreadMXBean threads;
+    private static volatile Object sink;
+    private static volatile int intSink;
+
+    @BeforeClass
+    public static void setUpClass() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+    }
+
+    @After
+    public void tearDown() {
+        Log.setDisabled(false);
+        Log.setLoggableTag(null, false);
+        LOGGER.setLevel(android.util.Log.VERBOSE);
+    }
+
+    @Test
+    public void disabledMessage() {
+        Log.setDisabled(true);
+        assertBudget("Log.v(String) disabled", 0, new Call() {
+            @Override
+            public void run() {
+                Log.v(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void disabledExtendedTagMessage() {
+        Log.setDisabled(true);
+        assertBudget("Log.d(Object, String) disabled", 0, new Call() {
+            @Override
+            public void run() {
+                Log.d(OWNER, MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void disabledExtendedTagThrowable() {
+        Log.setDisabled(true);
+        assertBudget("Log.e(Object, String, Throwable) disabled", 0, new Call() {
+            @Override
+            public void run() {
+                Log.e(OWNER, MESSAGE, null);
+            }
+        });
+    }
+
+    @Test
+    public void disabledToLogCall() {
+        Log.setDisabled(true);
+        assertBudget("@ToLog call disabled", 0, new Call() {
+            @Override
+            public void run() {
+                intSink = TARGET.compute(42);
+            }
+        });
+    }
+
+    @Test
+    public void disabledEvent() {
+        Log.setDisabled(true);
+        assertBudget("Log.atInfo() disabled", 0, new Call() {
+            @Override
+            public void run() {
+                Log.atInfo().kv("userId", 42).kv("ms", 1.5).msg(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void loggerBelowLevel() {
+        LOGGER.setLevel(android.util.Log.INFO);
+        assertBudget("Logger.d below its level", 0, new Call() {
+            @Override
+            public void run() {
+                LOGGER.d(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void filteredMessage() {
+        Log.setLoggableTag("AllocationBudget", false);
+        assertBudget("Log.d(String) filtered by log.tag", 0, new Call() {
+            @Override
+            public void run() {
+                Log.d(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void filteredExtendedTagMessage() {
+        Log.setLoggableTag("AllocationBudget", false);
+        assertBudget("Log.d(Object, String) filtered by log.tag", 0, new Call() {
+            @Override
+            public void run() {
+                Log.d(OWNER, MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void filteredEvent() {
+        Log.setLoggableTag("AllocationBudget", false);
+        assertBudget("Log.atDebug() filtered by log.tag", 0, new Call() {
+            @Override
+            public void run() {
+                Log.atDebug().kv("userId", 42).kv("ms", 1.5).msg(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void loggerMessage() {
+        assertBudget("Logger.d", 2600, new Call() {
+            @Override
+            public void run() {
+                LOGGER.d(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void message() {
+        assertBudget("Log.d(String)", 4900, new Call() {
+            @Override
+            public void run() {
+                Log.d(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void extendedTagMessage() {
+        assertBudget("Log.d(Object, String)", 4900, new Call() {
+            @Override
+            public void run() {
+                Log.d(OWNER, MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void event() {
+        assertBudget("Log.atInfo().kv().kv().msg()", 5400, new Call() {
+            @Override
+            public void run() {
+                Log.atInfo().kv("userId", 42).kv("ms", 1.5).msg(MESSAGE);
+            }
+        });
+    }
+
+    @Test
+    public void formattedMessage() {
+        final LogConfig config = Log.getConfig();
+        final String lines = "First line\nSecond line\nThird line";
+        assertBudget("Format.getFormattedMessage, 3 lines", 3200, new Call() {
+            @Override
+            public void run() {
+                sink = Format.getFormattedMessage(config, lines, null);
+            }
+        });
+    }
+
+    /**
+     * The total of the calls is compared, so a zero budget fails even on one object per {@link #MEASURED_CALLS} calls. The calls run on
+     * a new thread, the stack walk of the tag costs the same under any test runner.
+     */
+    private static void assertBudget(String name, long budget, Call call) {
+        Measurement measurement = new Measurement(call);
+        Thread thread = new Thread(measurement, "allocation-budget");
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        long bytes = measurement.bytes;
+        assertTrue(name + ": " + (double) bytes / MEASURED_CALLS + " bytes per call, budget " + budget, bytes <= budget * MEASURED_CALLS);
+    }
+
+    private interface Call {
+
+        void run();
+
+    }
+
+    private static final class Measurement implements Runnable {
+
+        private final Call call;
+        /**
+         * The least allocated bytes of the measured rounds
+         */
+        volatile long bytes;
+
+        Measurement(Call call) {
+            this.call = call;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < WARMUP_CALLS; i++) {
+                call.run();
+            }
+            long threadId = Thread.currentThread().getId();
+            long min = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = threads.getThreadAllocatedBytes(threadId);
+                for (int i = 0; i < MEASURED_CALLS; i++) {
+                    call.run();
+                }
+                min = Math.min(min, threads.getThreadAllocatedBytes(threadId) - start);
+            }
+            bytes = min;
+        }
+
+    }
+
+}
@@ -0,0 +1,24 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * A call site outside the logger classes, the stack walk of the tag skips every "ua.at.tsvetkov.util.Log*" class, the tests too.
+ */
+final class Boo {
+
+    private Boo() {
+
+    }
+
+    static void debug(String message) {
+        Log.d(message);
+    }
+
+    static void verbose(String message) {
+        Log.v(message);
+    }
+
+    static void event(String message, Object value) {
+        Log.atInfo().kv("value", value).msg(message);
+    }
+
+}
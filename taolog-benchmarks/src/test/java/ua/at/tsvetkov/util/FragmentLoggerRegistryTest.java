@@ -0,0 +1,94 @@
+package ua.at.tsvetkov.util;
+
+import android.app.Activity;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FragmentLoggerRegistryTest {
+
+    private static final int ROTATIONS = 10000;
+    private static final int MAX_GC_ATTEMPTS = 50;
+
+    @After
+    public void tearDown() throws InterruptedException {
+        collectUntilEmpty();
+    }
+
+    @Test
+    public void attachesOneCallbackPerActivity() {
+        Activity activity = new Activity();
+        Object callback = new Object();
+
+        assertTrue(FragmentLoggerRegistry.register(activity, callback));
+        assertFalse(FragmentLoggerRegistry.register(activity, new Object()));
+        assertSame(callback, FragmentLoggerRegistry.unregister(activity));
+        assertNull(FragmentLoggerRegistry.unregister(activity));
+    }
+
+    @Test
+    public void comparesActivitiesByIdentity() {
+        Activity first = new EqualActivity();
+        Activity second = new EqualActivity();
+
+        assertTrue(FragmentLoggerRegistry.register(first, new Object()));
+        assertTrue(FragmentLoggerRegistry.register(second, new Object()));
+        assertEquals(2, FragmentLoggerRegistry.size());
+
+        FragmentLoggerRegistry.unregister(first);
+        FragmentLoggerRegistry.unregister(second);
+    }
+
+    @Test
+    public void rotationsWithMissedDestroyDontLeak() throws InterruptedException {
+        for (int i = 0; i < ROTATIONS; i++) {
+            // Every activity holds 100 KB, 1 GB in total would not fit if the registry kept them
+            Activity activity = new HeavyActivity();
+            FragmentLoggerRegistry.register(activity, new Object());
+            if (i % 2 == 0) {
+                FragmentLoggerRegistry.unregister(activity);
+            }
+        }
+
+        collectUntilEmpty();
+
+        assertEquals(0, FragmentLoggerRegistry.size());
+    }
+
+    /**
+     * The collected entries are removed by the registry itself once the reference queue has them
+     */
+    private static void collectUntilEmpty() throws InterruptedException {
+        for (int i = 0; i < MAX_GC_ATTEMPTS && FragmentLoggerRegistry.size() > 0; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private static final class HeavyActivity extends Activity {
+
+        final byte[] payload = new byte[100 * 1024];
+
+    }
+
+    private static final class EqualActivity extends Activity {
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof EqualActivity;
+        }
+
+        @Override
+        public int hashCode() {
+            return 1;
+        }
+
+    }
+
+}
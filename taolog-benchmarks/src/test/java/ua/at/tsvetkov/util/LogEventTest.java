@@ -0,0 +1,64 @@
+package ua.at.tsvetkov.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class LogEventTest {
+
+    private final RecordingWriter output = new RecordingWriter();
+    private final CountingValue value = new CountingValue();
+
+    @Before
+    public void setUp() {
+        Log.setWriter(output);
+    }
+
+    @After
+    public void tearDown() {
+        Log.setRepeatSuppression(0, TimeUnit.SECONDS);
+        Log.setCallSiteRateLimit(null);
+        Log.setWriter(null);
+    }
+
+    @Test
+    public void repeatedEventIsNotRendered() {
+        Log.setRepeatSuppression(1, TimeUnit.MINUTES);
+
+        for (int i = 0; i < 3; i++) {
+            Boo.event("login", value);
+        }
+
+        assertEquals(1, output.messages.size());
+        assertEquals(1, value.renders);
+    }
+
+    @Test
+    public void rateLimitedEventIsNotRendered() {
+        Log.setCallSiteRateLimit(new RateLimit(0.001, 2));
+
+        for (int i = 0; i < 5; i++) {
+            Boo.event("login " + i, value);
+        }
+
+        assertEquals(2, output.messages.size());
+        assertEquals(2, value.renders);
+    }
+
+    private static final class CountingValue {
+
+        int renders;
+
+        @Override
+        public String toString() {
+            renders++;
+            return "value";
+        }
+
+    }
+
+}
@@ -0,0 +1,200 @@
+package ua.at.tsvetkov.util;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static android.util.Log.ASSERT;
+import static android.util.Log.DEBUG;
+import static android.util.Log.ERROR;
+import static android.util.Log.INFO;
+import static android.util.Log.VERBOSE;
+import static android.util.Log.WARN;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoggableFilterTest {
+
+    private static final String TAG = "App";
+
+    private final Properties properties = new Properties();
+    private final RecordingWriter output = new RecordingWriter();
+
+    @Before
+    public void setUp() {
+        LoggableFilter.setSource(properties);
+        Log.setWriter(output);
+    }
+
+    @After
+    public void tearDown() {
+        Log.setLoggableTag(null, false);
+        LoggableFilter.setSource(LoggableSource.ANDROID);
+        Log.setWriter(null);
+    }
+
+    @Test
+    public void followsLevelOfApplicationTag() {
+        properties.set(TAG, WARN);
+        Log.setLoggableTag(TAG, false);
+
+        assertFalse(LoggableFilter.isLoggable(VERBOSE));
+        assertFalse(LoggableFilter.isLoggable(DEBUG));
+        assertFalse(LoggableFilter.isLoggable(INFO));
+        assertTrue(LoggableFilter.isLoggable(WARN));
+        assertTrue(LoggableFilter.isLoggable(ERROR));
+        assertTrue(LoggableFilter.isLoggable(ASSERT));
+    }
+
+    @Test
+    public void acceptsEverythingWithoutTag() {
+        properties.set(TAG, ASSERT);
+
+        assertTrue(LoggableFilter.isLoggable(VERBOSE));
+        assertTrue(LoggableFilter.isLoggable(VERBOSE, " ▪ (Boo.java:14) isNeed"));
+        assertEquals(0, properties.getQueries(TAG));
+    }
+
+    @Test
+    public void readsEveryLevelOnce() {
+        Log.setLoggableTag(TAG, false);
+
+        for (int i = 0; i < 100; i++) {
+            LoggableFilter.isLoggable(DEBUG);
+            LoggableFilter.isLoggable(ERROR);
+        }
+
+        assertEquals(ASSERT - VERBOSE + 1, properties.getQueries(TAG));
+    }
+
+    @Test
+    public void fileTagEnablesLowerLevels() {
+        properties.set("Boo", VERBOSE);
+        Log.setLoggableTag(TAG, true);
+
+        assertTrue(LoggableFilter.isLoggable(DEBUG));
+        assertTrue(LoggableFilter.isLoggable(DEBUG, " ▪ (Boo.java:14) isNeed"));
+        assertTrue(LoggableFilter.isLoggable(VERBOSE, " ▪ (Boo.java:20) load"));
+        assertFalse(LoggableFilter.isLoggable(DEBUG, " ▪ (Foo.java:14) isNeed"));
+        assertEquals(ASSERT - VERBOSE + 1, properties.getQueries("Boo"));
+    }
+
+    @Test
+    public void fileTagOfCallSiteIsUsed() {
+        properties.set("Boo", DEBUG);
+        Log.setLoggableTag(TAG, true);
+
+        Boo.debug("logged");
+        Boo.verbose("dropped");
+
+        assertEquals(1, output.messages.size());
+        assertTrue(output.messages.get(0).contains("logged"));
+    }
+
+    @Test
+    public void refreshReadsLevelsAgain() {
+        properties.set(TAG, INFO);
+        Log.setLoggableTag(TAG, false);
+        assertFalse(LoggableFilter.isLoggable(DEBUG));
+
+        properties.set(TAG, DEBUG);
+        assertFalse(LoggableFilter.isLoggable(DEBUG));
+
+        Log.refreshLoggable();
+        assertTrue(LoggableFilter.isLoggable(DEBUG));
+        assertEquals(2 * (ASSERT - VERBOSE + 1), properties.getQueries(TAG));
+    }
+
+    @Test
+    public void refreshReadsFileLevelsAgain() {
+        Log.setLoggableTag(TAG, true);
+        assertFalse(LoggableFilter.isLoggable(DEBUG, " ▪ (Boo.java:14) isNeed"));
+
+        properties.set("Boo", DEBUG);
+        LoggableFilter.refresh();
+
+        assertTrue(LoggableFilter.isLoggable(DEBUG, " ▪ (Boo.java:14) isNeed"));
+    }
+
+    @Test
+    public void preFilterDropsBeforeFormatting() {
+        properties.set(TAG, INFO);
+        Log.setLoggableTag(TAG, false);
+        CountingThrowable throwable = new CountingThrowable();
+
+        Log.v("dropped", throwable);
+        Log.d("dropped", throwable);
+        Log.forTag("Custom").d("dropped", throwable);
+        Log.atDebug().kv("key", throwable).msg("dropped");
+
+        assertEquals(0, output.messages.size());
+        assertEquals(0, throwable.calls);
+    }
+
+    @Test
+    public void acceptedLevelIsFormatted() {
+        properties.set(TAG, INFO);
+        Log.setLoggableTag(TAG, false);
+        CountingThrowable throwable = new CountingThrowable();
+
+        Log.i("logged", throwable);
+
+        assertEquals(1, output.messages.size());
+        assertTrue(throwable.calls > 0);
+    }
+
+    /**
+     * The "log.tag.*" properties, unset means INFO like on a device
+     */
+    private static final class Properties implements LoggableSource {
+
+        private final Map<String, Integer> levels = new HashMap<>();
+        private final Map<String, Integer> queries = new HashMap<>();
+
+        synchronized void set(String tag, int level) {
+            levels.put(tag, level);
+        }
+
+        synchronized int getQueries(String tag) {
+            Integer count = queries.get(tag);
+            return count == null ? 0 : count;
+        }
+
+        @Override
+        public synchronized boolean isLoggable(String tag, int level) {
+            queries.put(tag, getQueries(tag) + 1);
+            Integer minLevel = levels.get(tag);
+            return level >= (minLevel == null ? INFO : minLevel);
+        }
+
+    }
+
+    private static final class CountingThrowable extends Throwable {
+
+        int calls;
+
+        @Override
+        public String getMessage() {
+            calls++;
+            return "counted";
+        }
+
+        @Override
+        public StackTraceElement[] getStackTrace() {
+            calls++;
+            return super.getStackTrace();
+        }
+
+        @Override
+        public String toString() {
+            calls++;
+            return super.toString();
+        }
+
+    }
+
+}
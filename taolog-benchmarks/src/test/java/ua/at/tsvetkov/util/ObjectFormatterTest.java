@@ -0,0 +1,83 @@
+package ua.at.tsvetkov.util;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ObjectFormatterTest {
+
+    @Test
+    public void cutsPlainObjectAfterSeparator() {
+        String result = ObjectFormatter.toString(new Object[]{123456789, 5}, new FormatLimits(10, 0, 0));
+
+        assertEquals("[123456789…", result);
+    }
+
+    @Test
+    public void cutsPlainObjectAtEveryLength() {
+        Object[] array = {123456789, 5, "text", 42L};
+        for (int maxLength = 1; maxLength < 30; maxLength++) {
+            String result = ObjectFormatter.toString(array, new FormatLimits(maxLength, 0, 0));
+
+            assertTrue(result, result.length() <= maxLength + 1);
+        }
+    }
+
+    @Test
+    public void limitsNestedCollections() {
+        List<Integer> inner = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            inner.add(i);
+        }
+        List<Object> outer = new ArrayList<>();
+        outer.add(inner);
+
+        String result = ObjectFormatter.toString(outer, new FormatLimits(0, 0, 3));
+
+        assertEquals("[[0, 1, 2, …99997 more]]", result);
+    }
+
+    @Test
+    public void limitsNestedMaps() {
+        Map<String, Object> inner = new HashMap<>();
+        inner.put("a", Arrays.asList(1, 2, 3, 4));
+        Map<String, Object> outer = Collections.<String, Object>singletonMap("inner", inner);
+
+        String result = ObjectFormatter.toString(outer, new FormatLimits(0, 0, 2));
+
+        assertEquals("{\"inner\"={\"a\"=[1, 2, …2 more]}}", result);
+    }
+
+    @Test
+    public void detectsNestedCycles() {
+        List<Object> first = new ArrayList<>();
+        List<Object> second = new ArrayList<>();
+        first.add(second);
+        second.add(first);
+        first.add(first);
+
+        String result = ObjectFormatter.toString(first, new FormatLimits(0, 0, 10));
+
+        assertEquals("[[[...]], (this Collection)]", result);
+    }
+
+    @Test
+    public void detectsCollectionInsideArray() {
+        List<Object> list = new ArrayList<>();
+        Object[] array = {list};
+        list.add(array);
+
+        String result = ObjectFormatter.toString(array, new FormatLimits(0, 10, 10));
+
+        assertEquals("[[[...]]]", result);
+    }
+
+}
@@ -0,0 +1,25 @@
+package ua.at.tsvetkov.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the written messages for the assertions.
+ */
+final class RecordingWriter implements LogWriter {
+
+    final List<String> tags = new ArrayList<>();
+    final List<String> messages = new ArrayList<>();
+
+    @Override
+    public synchronized void write(int priority, String tag, String message) {
+        tags.add(tag);
+        messages.add(message);
+    }
+
+    @Override
+    public void flush() {
+
+    }
+
+}
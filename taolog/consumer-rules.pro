@@ -0,0 +1,9 @@
+# ProGuard rules applied to the apps using taolog.
+
+# The call site is found in the stack trace by the "ua.at.tsvetkov.util.Log" class name prefix
+-keepnames class ua.at.tsvetkov.util.**
+
+# @ToLog is read at runtime, LogAspect is called by the woven code
+-keep @interface ua.at.tsvetkov.annotations.ToLog
+-keep class ua.at.tsvetkov.util.LogAspect { *; }
+-dontwarn org.aspectj.**
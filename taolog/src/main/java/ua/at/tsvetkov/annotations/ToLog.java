@@ -6,8 +6,53 @@ import java.lang.annotation.Target;
 import static java.lang.annotation.ElementType.CONSTRUCTOR;
 import static java.lang.annotation.ElementType.METHOD;
 import static java.lang.annotation.ElementType.TYPE;
-import static java.lang.annotation.RetentionPolicy.CLASS;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
 
-@Target({TYPE, METHOD, CONSTRUCTOR}) @Retention(CLASS)
+/**
+ * Log the calls of the annotated method or constructor, or of every method and constructor of the annotated class. The attributes of
+ * a method annotation override the ones of its class annotation one by one, only the attributes set to other than their defaults, so
+ * a bare {@code @ToLog} on a method keeps the sampling and the limits of the class. The two thresholds are one attribute.
+ */
+@Target({TYPE, METHOD, CONSTRUCTOR}) @Retention(RUNTIME)
 public @interface ToLog {
+
+    /**
+     * Log only 1 of every N calls. 1 (by default) logs every call.
+     */
+    int sampleEvery() default 1;
+
+    /**
+     * Log at most so many calls per second. 0 (by default) is unlimited.
+     */
+    int maxPerSecond() default 0;
+
+    /**
+     * Log only the calls which take at least so many milliseconds. The arguments are formatted only for such calls, after the call
+     * returns, so mutable arguments show their final state. Negative (by default) uses {@code thresholdMicros} or the global threshold
+     * set with {@code Log.setToLogThresholdMicros(long)}.
+     */
+    long thresholdMillis() default -1;
+
+    /**
+     * Log only the calls which take at least so many microseconds. Negative (by default) uses {@code thresholdMillis} or the global
+     * threshold.
+     */
+    long thresholdMicros() default -1;
+
+    /**
+     * Max characters of one formatted argument or result. 0 is unlimited, negative (by default) uses the global limit set with
+     * {@code Log.setToLogLimits(int, int, int)}.
+     */
+    int maxLength() default -1;
+
+    /**
+     * Max printed elements of an array argument or result. 0 is unlimited, negative (by default) uses the global limit.
+     */
+    int maxArrayElements() default -1;
+
+    /**
+     * Max printed elements of a collection or entries of a map. 0 is unlimited, negative (by default) uses the global limit.
+     */
+    int maxCollectionSize() default -1;
+
 }
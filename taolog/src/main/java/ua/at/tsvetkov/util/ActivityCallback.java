@@ -0,0 +1,23 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * The Activity lifecycle callbacks reported by {@link android.app.Application.ActivityLifecycleCallbacks}, with the Activity methods
+ * they are called from.
+ */
+enum ActivityCallback {
+
+    CREATE("onCreate"),
+    START("onStart"),
+    RESUME("onResume"),
+    PAUSE("onPause"),
+    STOP("onStop"),
+    SAVE_INSTANCE_STATE("onSaveInstanceState"),
+    DESTROY("onDestroy");
+
+    final String methodName;
+
+    ActivityCallback(String methodName) {
+        this.methodName = methodName;
+    }
+
+}
@@ -0,0 +1,99 @@
+package ua.at.tsvetkov.util;
+
+import android.app.Activity;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Tags and banners of the lifecycle log of one Activity class. Each callback is resolved on its first call with one stack walk, which
+ * finds the line of the overriding method if the Activity overrides it, and then reused for every instance of the class.
+ */
+final class ActivityLogInfo {
+
+    private static final ConcurrentHashMap<Class<?>, ActivityLogInfo> CACHE = new ConcurrentHashMap<>();
+    private static final ActivityCallback[] CALLBACKS = ActivityCallback.values();
+
+    private final Class<?> activityClass;
+    private final String simpleName;
+    private final AtomicReferenceArray<Callback> callbacks = new AtomicReferenceArray<>(CALLBACKS.length);
+
+    private ActivityLogInfo(Class<?> activityClass) {
+        this.activityClass = activityClass;
+        simpleName = activityClass.getSimpleName();
+    }
+
+    static ActivityLogInfo get(Activity activity) {
+        Class<?> activityClass = activity.getClass();
+        ActivityLogInfo info = CACHE.get(activityClass);
+        if (info == null) {
+            info = new ActivityLogInfo(activityClass);
+            ActivityLogInfo previous = CACHE.putIfAbsent(activityClass, info);
+            if (previous != null) {
+                info = previous;
+            }
+        }
+        return info;
+    }
+
+    String getTag(LogConfig config, ActivityCallback callback) {
+        Callback resolved = resolve(callback);
+        return resolved.tagCache.get(config, resolved.location);
+    }
+
+    String getBanner(ActivityCallback callback) {
+        return resolve(callback).banner;
+    }
+
+    private Callback resolve(ActivityCallback callback) {
+        Callback resolved = callbacks.get(callback.ordinal());
+        if (resolved == null) {
+            resolved = new Callback(callback, findFrame(callback));
+            callbacks.set(callback.ordinal(), resolved);
+        }
+        return resolved;
+    }
+
+    /**
+     * @return the frame of the overriding method calling the super method, null if the Activity class doesn't override it
+     */
+    private StackTraceElement findFrame(ActivityCallback callback) {
+        String className = activityClass.getName();
+        for (StackTraceElement trace : Thread.currentThread().getStackTrace()) {
+            if (trace.getClassName().equals(className) && trace.getMethodName().equals(callback.methodName)) {
+                return trace;
+            }
+        }
+        return null;
+    }
+
+    private final class Callback {
+
+        final String location;
+        final String banner;
+        final TagCache tagCache = new TagCache();
+
+        Callback(ActivityCallback callback, StackTraceElement frame) {
+            StringBuilder sb = new StringBuilder();
+            Format.addClassLink(sb, simpleName, frame == null ? 0 : Math.max(frame.getLineNumber(), 0));
+            sb.append(callback.methodName);
+            location = sb.toString();
+
+            sb.setLength(0);
+            sb.append(Format.HALF_LINE);
+            sb.append(Format.ACTIVITY_MESSAGE);
+            sb.append(Format.SPACE);
+            sb.append(simpleName);
+            if (frame != null) {
+                sb.append(" (method overridden)");
+            }
+            sb.append(" -> ");
+            sb.append(callback.methodName);
+            sb.append(Format.SPACE);
+            sb.append(Format.HALF_LINE);
+            banner = sb.toString();
+        }
+
+    }
+
+}
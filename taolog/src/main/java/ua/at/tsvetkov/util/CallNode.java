@@ -0,0 +1,68 @@
+package ua.at.tsvetkov.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A node of a per-thread call tree: one traced method reached through one particular chain of callers. The times are updated only by
+ * the owning thread and read by the profiler writer.
+ */
+final class CallNode {
+
+    final String name;
+    final Map<TracedMethod, CallNode> children = new ConcurrentHashMap<>();
+
+    private volatile long calls;
+    private volatile long totalNanos;
+    private volatile long selfNanos;
+    private volatile long resetCalls;
+    private volatile long resetTotalNanos;
+    private volatile long resetSelfNanos;
+
+    CallNode(String name) {
+        this.name = name;
+    }
+
+    CallNode child(TracedMethod method) {
+        CallNode node = children.get(method);
+        if (node == null) {
+            node = new CallNode(method.fullName);
+            children.put(method, node);
+        }
+        return node;
+    }
+
+    /**
+     * Called by the owning thread only
+     */
+    void add(long totalNanos, long selfNanos) {
+        this.calls++;
+        this.totalNanos += totalNanos;
+        this.selfNanos += selfNanos;
+    }
+
+    long getCalls() {
+        return calls - resetCalls;
+    }
+
+    long getTotalNanos() {
+        return totalNanos - resetTotalNanos;
+    }
+
+    long getSelfNanos() {
+        return selfNanos - resetSelfNanos;
+    }
+
+    /**
+     * Start counting from zero without writing the fields of the owning thread
+     */
+    void reset() {
+        resetCalls = calls;
+        resetTotalNanos = totalNanos;
+        resetSelfNanos = selfNanos;
+        for (CallNode child : children.values()) {
+            child.reset();
+        }
+    }
+
+}
@@ -0,0 +1,53 @@
+package ua.at.tsvetkov.util;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides which calls of a traced method are logged: 1 of every N calls and/or at most K calls per second. Skipped calls only update
+ * a counter.
+ */
+final class CallSampler {
+
+    static final long NOT_SAMPLED = -1;
+
+    private static final long SECOND_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final int sampleEvery;
+    private final int maxPerSecond;
+    private final AtomicLong calls = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private final AtomicInteger windowCount = new AtomicInteger();
+
+    CallSampler(int sampleEvery, int maxPerSecond) {
+        this.sampleEvery = sampleEvery;
+        this.maxPerSecond = maxPerSecond;
+    }
+
+    /**
+     * @return {@link #NOT_SAMPLED} if the call must not be logged, otherwise the number of calls skipped since the previous logged one
+     */
+    long sample() {
+        if (sampleEvery > 1 && calls.getAndIncrement() % sampleEvery != 0) {
+            skipped.incrementAndGet();
+            return NOT_SAMPLED;
+        }
+        if (maxPerSecond > 0 && !acquire()) {
+            skipped.incrementAndGet();
+            return NOT_SAMPLED;
+        }
+        return skipped.getAndSet(0);
+    }
+
+    private boolean acquire() {
+        long now = System.nanoTime();
+        long start = windowStart.get();
+        if (now - start >= SECOND_NANOS && windowStart.compareAndSet(start, now)) {
+            windowCount.set(0);
+        }
+        return windowCount.incrementAndGet() <= maxPerSecond;
+    }
+
+}
@@ -0,0 +1,75 @@
+package ua.at.tsvetkov.util;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.SourceLocation;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A Log.x(...) call in the application code, resolved once from the static metadata woven by {@link LogCallAspect}: file, line,
+ * enclosing class and method, level. Replaces the stack walk of {@link Format#getTag(LogConfig)} for the woven calls.
+ */
+final class CallSite {
+
+    private static final ConcurrentHashMap<JoinPoint.StaticPart, CallSite> CACHE = new ConcurrentHashMap<>();
+
+    final int priority;
+    final String className;
+    final String methodName;
+    /**
+     * Source link and method name, like "(Boo.java:14) isNeed", the same as {@link Format#addLocation} finds in the stack
+     */
+    final String location;
+    private final TagCache tagCache = new TagCache();
+
+    private CallSite(JoinPoint.StaticPart call, JoinPoint.StaticPart enclosing) {
+        priority = getPriority(call.getSignature().getName());
+        Signature signature = enclosing.getSignature();
+        className = signature.getDeclaringTypeName();
+        methodName = signature.getName();
+        StringBuilder sb = new StringBuilder();
+        SourceLocation sourceLocation = call.getSourceLocation();
+        if (sourceLocation != null) {
+            Format.addClassLink(sb, sourceLocation.getFileName(), sourceLocation.getLine());
+        } else {
+            Format.addClassLink(sb, className.substring(className.lastIndexOf('.') + 1) + Format.JAVA, 0);
+        }
+        sb.append(methodName);
+        location = sb.toString();
+    }
+
+    static CallSite get(JoinPoint.StaticPart call, JoinPoint.StaticPart enclosing) {
+        CallSite site = CACHE.get(call);
+        if (site == null) {
+            site = new CallSite(call, enclosing);
+            CallSite previous = CACHE.putIfAbsent(call, site);
+            if (previous != null) {
+                site = previous;
+            }
+        }
+        return site;
+    }
+
+    String getTag(LogConfig config) {
+        return tagCache.get(config, location);
+    }
+
+    private static int getPriority(String logMethodName) {
+        switch (logMethodName) {
+            case "v":
+                return android.util.Log.VERBOSE;
+            case "d":
+                return android.util.Log.DEBUG;
+            case "i":
+                return android.util.Log.INFO;
+            case "w":
+                return android.util.Log.WARN;
+            case "e":
+                return android.util.Log.ERROR;
+            default:
+                return android.util.Log.ASSERT;
+        }
+    }
+
+}
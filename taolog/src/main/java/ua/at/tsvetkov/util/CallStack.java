@@ -0,0 +1,87 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * The chain of traced methods currently running on one thread. Gives the call depth for indentation and, while {@link ToLogProfiler}
+ * is enabled, the call tree node of every running call.
+ */
+final class CallStack {
+
+    private static final ThreadLocal<CallStack> STACKS = new ThreadLocal<CallStack>() {
+        @Override
+        protected CallStack initialValue() {
+            return new CallStack(Thread.currentThread().getName());
+        }
+    };
+
+    private final String threadName;
+    private CallNode root;
+    private CallNode[] nodes = new CallNode[16];
+    private long[] childrenNanos = new long[16];
+    private int depth;
+
+    private CallStack(String threadName) {
+        this.threadName = threadName;
+    }
+
+    static CallStack get() {
+        return STACKS.get();
+    }
+
+    /**
+     * @param method     the entered method
+     * @param isProfiled add the call to the call tree
+     * @return depth of the call, 0 for the outermost one
+     */
+    int enter(TracedMethod method, boolean isProfiled) {
+        if (depth == nodes.length) {
+            grow();
+        }
+        CallNode node = null;
+        if (isProfiled) {
+            CallNode parent = depth > 0 ? nodes[depth - 1] : null;
+            if (parent == null) {
+                parent = getRoot();
+            }
+            node = parent.child(method);
+        }
+        nodes[depth] = node;
+        childrenNanos[depth] = 0;
+        return depth++;
+    }
+
+    /**
+     * @param totalNanos duration of the call which is finished
+     * @return time spent in the method itself, without the traced methods it called
+     */
+    long exit(long totalNanos) {
+        depth--;
+        long selfNanos = totalNanos - childrenNanos[depth];
+        if (depth > 0) {
+            childrenNanos[depth - 1] += totalNanos;
+        }
+        CallNode node = nodes[depth];
+        if (node != null) {
+            node.add(totalNanos, selfNanos);
+            nodes[depth] = null;
+        }
+        return selfNanos;
+    }
+
+    private CallNode getRoot() {
+        if (root == null) {
+            root = new CallNode(threadName);
+            ToLogProfiler.register(root);
+        }
+        return root;
+    }
+
+    private void grow() {
+        CallNode[] newNodes = new CallNode[nodes.length * 2];
+        System.arraycopy(nodes, 0, newNodes, 0, nodes.length);
+        nodes = newNodes;
+        long[] newChildrenNanos = new long[childrenNanos.length * 2];
+        System.arraycopy(childrenNanos, 0, newChildrenNanos, 0, childrenNanos.length);
+        childrenNanos = newChildrenNanos;
+    }
+
+}
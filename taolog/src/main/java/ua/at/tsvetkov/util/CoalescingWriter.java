@@ -0,0 +1,130 @@
+package ua.at.tsvetkov.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merges the consecutive messages of the same tag and level, written within a short window, into one multi-line logcat entry. A burst
+ * of short lines, like the lifecycle banners or the @ToLog calls of one place, costs one write to the log daemon instead of one per line.
+ * The entry is written when another tag or level comes, when it would exceed the entry size, when the window passes, or before an ERROR
+ * or ASSERT message, which is never delayed.
+ */
+public final class CoalescingWriter implements LogWriter {
+
+    /**
+     * Characters of one merged entry, the logcat payload is limited to about 4 KB together with the tag
+     */
+    public static final int MAX_ENTRY_LENGTH = 4000;
+
+    private final LogWriter target;
+    private final long windowNanos;
+    private final int maxLength;
+    private final StringBuilder pending = new StringBuilder();
+    private String pendingTag = null;
+    private int pendingPriority;
+    private long pendingSinceNanos;
+    private ScheduledFuture<?> flusher = null;
+    private boolean isClosed = false;
+
+    /**
+     * @param target the writer of the merged entries, like {@link LogWriter#ANDROID}
+     * @param window how long an entry collects the following messages
+     * @param unit   time unit of the window
+     */
+    public CoalescingWriter(@NonNull LogWriter target, long window, @NonNull TimeUnit unit) {
+        this(target, window, unit, MAX_ENTRY_LENGTH);
+    }
+
+    /**
+     * @param target    the writer of the merged entries, like {@link LogWriter#ANDROID}
+     * @param window    how long an entry collects the following messages
+     * @param unit      time unit of the window
+     * @param maxLength max characters of one merged entry
+     */
+    public CoalescingWriter(@NonNull LogWriter target, long window, @NonNull TimeUnit unit, int maxLength) {
+        if (window <= 0) {
+            throw new IllegalArgumentException("window must be positive, found " + window);
+        }
+        if (maxLength <= 0) {
+            throw new IllegalArgumentException("maxLength must be positive, found " + maxLength);
+        }
+        this.target = target;
+        this.windowNanos = unit.toNanos(window);
+        this.maxLength = maxLength;
+    }
+
+    @Override
+    public synchronized void write(int priority, String tag, String message) {
+        if (isClosed || priority >= android.util.Log.ERROR || message.length() >= maxLength) {
+            flushPending();
+            target.write(priority, tag, message);
+            return;
+        }
+        long now = System.nanoTime();
+        if (pendingTag != null && (priority != pendingPriority || !tag.equals(pendingTag)
+                || pending.length() + 1 + message.length() > maxLength || now - pendingSinceNanos >= windowNanos)) {
+            flushPending();
+        }
+        if (pendingTag == null) {
+            pendingTag = tag;
+            pendingPriority = priority;
+            pendingSinceNanos = now;
+            pending.append(message);
+            startFlusher();
+        } else {
+            pending.append(Format.NL).append(message);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        flushPending();
+        target.flush();
+    }
+
+    /**
+     * Write the pending entry and stop the background flushing. The following messages are written directly.
+     */
+    public synchronized void close() {
+        isClosed = true;
+        if (flusher != null) {
+            flusher.cancel(false);
+            flusher = null;
+        }
+        flush();
+    }
+
+    private void startFlusher() {
+        if (flusher == null) {
+            flusher = LogScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    flushExpired();
+                }
+            }, windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private synchronized void flushExpired() {
+        if (pendingTag != null && System.nanoTime() - pendingSinceNanos >= windowNanos) {
+            flushPending();
+        }
+    }
+
+    private void flushPending() {
+        if (pendingTag == null) {
+            return;
+        }
+        String tag = pendingTag;
+        String message = pending.toString();
+        pendingTag = null;
+        pending.setLength(0);
+        if (pending.capacity() > maxLength * 2) {
+            pending.trimToSize();
+        }
+        target.write(pendingPriority, tag, message);
+    }
+
+}
@@ -0,0 +1,21 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Output layout of the structured {@link LogEvent}s.
+ */
+public enum EventFormat {
+
+    /**
+     * The usual outlined message, the message as the title and every key on its own line: "userId = 42"
+     */
+    OUTLINED,
+    /**
+     * One line: "login userId=42 ms=12.5"
+     */
+    KEY_VALUE,
+    /**
+     * One JSON object per line: {"msg":"login","userId":42,"ms":12.5}
+     */
+    JSON
+
+}
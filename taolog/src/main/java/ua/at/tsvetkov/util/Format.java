@@ -25,7 +25,6 @@
  */
 package ua.at.tsvetkov.util;
 
-import android.app.Activity;
 import android.app.FragmentManager;
 import android.support.annotation.NonNull;
 import android.text.TextUtils;
@@ -72,7 +71,6 @@ final class Format {
     static final String HALF_LINE = "---------------------";
     static final String ACTIVITY_MESSAGE = " Activity: ";
     static final String JAVA = ".java";
-    static final String ACTIVITY_CLASS = "android.app.Activity";
     static final String DELIMITER_START = "· ";
     static final String DELIMITER = "···························································································";
     static final String HALF_DELIMITER = "·····································";
@@ -81,45 +79,68 @@ final class Format {
     static final String THROWABLE_DELIMITER = "===========================================================================================";
     static final String NL = "\n";
     static final String ARRAY = "Array";
+    static final String INDENT = "  ";
     public static final char SPACE = ' ';
 
-    static volatile int maxTagLength = MAX_TAG_LENGTH;
-    static volatile int beforeTagSpacesCount;
-    static volatile String stamp = null;
+    /**
+     * Width of the logcat line prefix before the tag, used to align the new lines. Negative until an aligned message of the application
+     */
+    static volatile int beforeTagSpacesCount = -1;
+    /**
+     * The callers which are not the application, like the thread pool running the periodic reports
+     */
+    private static final String[] PLATFORM_PACKAGES = {"java.", "javax.", "sun.", "dalvik.", "android.", "androidx.", "com.android.",
+            "kotlin.", "kotlinx."};
+
+    private Format() {
 
-    static {
-        beforeTagSpacesCount = getPackageNameLength() + MAGIC_SPACES_COUNT;
     }
 
-    private Format() {
+    /**
+     * Width of the logcat line prefix found in the current stack, when the package name is not configured. Kept only if the logger is
+     * called by the application, see {@link #isBeforeTagSpacesCountKnown()}.
+     */
+    static int getBeforeTagSpacesCount() {
+        int count = beforeTagSpacesCount;
+        if (count < 0) {
+            int length = getPackageNameLength();
+            if (length < 0) {
+                return MAGIC_SPACES_COUNT;
+            }
+            count = length + MAGIC_SPACES_COUNT;
+            beforeTagSpacesCount = count;
+        }
+        return count;
+    }
 
+    static boolean isBeforeTagSpacesCountKnown() {
+        return beforeTagSpacesCount >= 0;
     }
 
+    /**
+     * Length of the package of the first class calling the logger, found in the current stack.
+     *
+     * @return -1 if the logger is not called by the application
+     */
     private static int getPackageNameLength() {
         String thisPackageName = Log.class.getPackage().getName();
-        StackTraceElement[] tr = Thread.currentThread().getStackTrace();
-        boolean notFound = true;
-        int id = 0;
-        String appPackageName = null;
-        while (notFound) {
-            appPackageName = tr[id++].getClassName();
-            if (appPackageName.contains(thisPackageName)) {
-                notFound = false;
-            }
-        }
-        notFound = true;
-        while (notFound) {
-            appPackageName = tr[id++].getClassName();
-            if (!appPackageName.contains(thisPackageName)) {
-                notFound = false;
-                appPackageName = appPackageName.substring(0, appPackageName.lastIndexOf('.'));
+        StackTraceElement[] traces = Thread.currentThread().getStackTrace();
+        boolean isInLogger = false;
+        for (StackTraceElement trace : traces) {
+            String className = trace.getClassName();
+            if (className.startsWith(thisPackageName)) {
+                isInLogger = true;
+            } else if (isInLogger) {
+                for (String platformPackage : PLATFORM_PACKAGES) {
+                    if (className.startsWith(platformPackage)) {
+                        return -1;
+                    }
+                }
+                int end = className.lastIndexOf('.');
+                return end < 0 ? 0 : end;
             }
         }
-        if (notFound) {
-            return 0;
-        } else {
-            return appPackageName.length();
-        }
+        return -1;
     }
 
     /**
@@ -533,12 +554,13 @@ final class Format {
         appendLines(logs, sb);
         sb.append(" --------------------------------------------------------");
 
+        LogConfig config = Log.config;
         StringBuilder spSb = new StringBuilder();
         spSb.append(PREFIX_MAIN_STRING);
-        addStamp(spSb);
+        addStamp(spSb, config);
         spSb.append(className);
-        addSpaces(spSb);
-        android.util.Log.v(spSb.toString(), sb.toString());
+        addSpaces(spSb, config);
+        Log.print(android.util.Log.VERBOSE, spSb.toString(), sb.toString());
     }
 
     // ============================ Private common methods ==============================
@@ -557,23 +579,50 @@ final class Format {
     }
 
     static String getTag() {
+        return getTag(Log.config);
+    }
+
+    static String getTag(LogConfig config) {
         final String className = Log.class.getName();
         final StackTraceElement[] traces = Thread.currentThread().getStackTrace();
         StringBuilder sb = new StringBuilder();
 
-        fillTag(className, traces, sb);
+        fillTag(config, className, traces, sb);
 
         return sb.toString();
     }
 
-    static void fillTag(String className, StackTraceElement[] traces, StringBuilder sb) {
+    /**
+     * Tag for an already known location, without looking into the stack trace.
+     *
+     * @param location source link and method name, like "(Boo.java:14) isNeed"
+     * @return the tag
+     */
+    static String getTag(String location) {
+        return getTag(Log.config, location);
+    }
+
+    static String getTag(LogConfig config, String location) {
+        StringBuilder sb = new StringBuilder();
         sb.append(PREFIX_MAIN_STRING);
-        addStamp(sb);
+        addStamp(sb, config);
+        sb.append(location);
+        addSpaces(sb, config);
+        return sb.toString();
+    }
+
+    static void fillTag(LogConfig config, String className, StackTraceElement[] traces, StringBuilder sb) {
+        sb.append(PREFIX_MAIN_STRING);
+        addStamp(sb, config);
         addLocation(className, traces, sb);
-        addSpaces(sb);
+        addSpaces(sb, config);
     }
 
     static String gatExtendedTag(Object obj) {
+        return gatExtendedTag(Log.config, obj);
+    }
+
+    static String gatExtendedTag(LogConfig config, Object obj) {
         if (obj == null) {
             Log.v("null");
         }
@@ -586,7 +635,7 @@ final class Format {
 
         StringBuilder sb = new StringBuilder();
         sb.append(PREFIX_MAIN_STRING);
-        addStamp(sb);
+        addStamp(sb, config);
 
         int sbPrefixLength = sb.length();
 
@@ -609,76 +658,13 @@ final class Format {
             sb.append(SPACE);
         }
         addLocation(parentClassName, traces, sb);
-        addSpaces(sb);
-
-        return sb.toString();
-    }
-
-    static String getActivityTag(Activity activity) {
-        String className = activity.getClass().getCanonicalName();
-        String classSimpleName = activity.getClass().getSimpleName();
-
-        final StackTraceElement[] traces = Thread.currentThread().getStackTrace();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(PREFIX_MAIN_STRING);
-        addStamp(sb);
-
-        StackTraceElement trace = findStackTraceElement(traces, className);
-
-        if (trace != null) {
-            addClassLink(sb, classSimpleName, trace.getLineNumber());
-        } else {
-            addClassLink(sb, classSimpleName, 0);
-            trace = findStackTraceElement(traces, ACTIVITY_CLASS);
-        }
-
-        sb.append(trace.getMethodName());
-
-        addSpaces(sb);
+        addSpaces(sb, config);
 
         return sb.toString();
     }
 
-    static String getActivityMethodInfo(Activity activity) {
-        String className = activity.getClass().getCanonicalName();
-        String classSimpleName = activity.getClass().getSimpleName();
-
-        final StackTraceElement[] traces = Thread.currentThread().getStackTrace();
-
-        StringBuilder sb = new StringBuilder();
-        sb.append(HALF_LINE);
-        sb.append(ACTIVITY_MESSAGE);
-
-        StackTraceElement trace = findStackTraceElement(traces, className);
-
-        boolean isOverride = false;
-        if (trace != null) {
-            isOverride = true;
-        } else {
-            trace = findStackTraceElement(traces, ACTIVITY_CLASS);
-        }
-
-        sb.append(SPACE);
-        sb.append(classSimpleName);
-
-        if (isOverride) {
-            sb.append(" (method overridden)");
-        }
-
-        sb.append(" -> ");
-        sb.append(trace.getMethodName());
-        sb.append(SPACE);
-        sb.append(HALF_LINE);
-
-        return sb.toString();
-    }
-
-    static void addStamp(StringBuilder sb) {
-        if (stamp != null && stamp.length() > 0) {
-            sb.append(stamp);
-            sb.append(SPACE);
-        }
+    static void addStamp(StringBuilder sb, LogConfig config) {
+        sb.append(config.stampPrefix);
     }
 
     static void addLocation(String className, StackTraceElement[] traces, StringBuilder sb) {
@@ -706,6 +692,40 @@ final class Format {
             }
         }
     }
+
+    /**
+     * Append a duration in milliseconds with microsecond precision, like "12.345ms"
+     *
+     * @param sb    the builder
+     * @param nanos duration in nanoseconds
+     */
+    static void addMillis(StringBuilder sb, long nanos) {
+        long micros = nanos / 1000;
+        long fraction = micros % 1000;
+        sb.append(micros / 1000);
+        sb.append('.');
+        if (fraction < 100) {
+            sb.append('0');
+        }
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+        sb.append("ms");
+    }
+
+    /**
+     * Append two spaces per call depth level
+     *
+     * @param sb    the builder
+     * @param depth call depth, 0 for the outermost call
+     */
+    static void addIndent(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) {
+            sb.append(INDENT);
+        }
+    }
+
     static void addClassLink(StringBuilder sb, String fileName, int lineNumber) {
         sb.append('(');
         sb.append(fileName);
@@ -726,18 +746,16 @@ final class Format {
 //        sb.append(SPACE);
 //    }
 
-    static void addSpaces(StringBuilder sb) {
-        if (!Log.isAlignNewLines()) {
+    static void addSpaces(StringBuilder sb, LogConfig config) {
+        if (!config.isAlignNewLines) {
 //            sb.append(" \u21B4 ");
             return;
         }
-        int extraSpaceCount = maxTagLength - sb.length();
+        int extraSpaceCount = config.maxTagLength - sb.length();
         if (extraSpaceCount < 0) {
-            maxTagLength = sb.length();
-            extraSpaceCount = 0;
-        }
-        for (int i = 0; i < extraSpaceCount; i++) {
-            sb.append(SPACE);
+            Log.growMaxTagLength(sb.length());
+        } else {
+            sb.append(config.tagPadding, 0, extraSpaceCount);
         }
         sb.append('\u21DB');
     }
@@ -756,55 +774,52 @@ final class Format {
         return "";
     }
 
-    static StackTraceElement findStackTraceElement(StackTraceElement[] traces, String startsFrom) {
-        StackTraceElement trace = null;
-        for (int i = 0; i < traces.length; i++) {
-            if (traces[i].getClassName().startsWith(startsFrom)) {
-                trace = traces[i];
-                break;
-            }
-        }
-        return trace;
-    }
-
     static String getFormattedMessage(String message) {
-        return getFormattedMessage(message, null);
+        return getFormattedMessage(Log.config, message, null);
     }
 
     static String getFormattedThrowable(Throwable throwable) {
-        return getFormattedThrowable(null, throwable);
+        return getFormattedThrowable(Log.config, null, throwable);
     }
 
     static String getFormattedMessage(String message, String title) {
+        return getFormattedMessage(Log.config, message, title);
+    }
+
+    static String getFormattedThrowable(String message, Throwable throwable) {
+        return getFormattedThrowable(Log.config, message, throwable);
+    }
+
+    static String getFormattedMessage(LogConfig config, String message, String title) {
         String[] lines = message.split("\\n");
-        int linesCount = getLinesCount(title, lines);
-        lines = createLines(title, lines, linesCount);
-        if (Log.isAlignNewLines()) {
-            appendAlignmentForLines(lines);
+        int linesCount = getLinesCount(config, title, lines);
+        lines = createLines(config, title, lines, linesCount);
+        if (config.isAlignNewLines) {
+            appendAlignmentForLines(config, lines);
         }
 
         StringBuilder sb = new StringBuilder();
-        if (linesCount > 1 && !Log.isAlignNewLines()) {
+        if (linesCount > 1 && !config.isAlignNewLines) {
             sb.append(" \n");
         }
         appendLines(lines, sb);
         return sb.toString();
     }
 
-    static String getFormattedThrowable(String message, Throwable throwable) {
+    static String getFormattedThrowable(LogConfig config, String message, Throwable throwable) {
         String[] lines = null;
         if (message != null) {
             lines = message.split("\\n");
         }
-        int linesCount = getLinesCount(lines, throwable);
-        lines = createLines(throwable, lines, linesCount);
+        int linesCount = getLinesCount(config, lines, throwable);
+        lines = createLines(config, throwable, lines, linesCount);
 
-        if (Log.isAlignNewLines()) {
-            appendAlignmentForLines(lines);
+        if (config.isAlignNewLines) {
+            appendAlignmentForLines(config, lines);
         }
 
         StringBuilder sb = new StringBuilder();
-        if (linesCount > 1 && !Log.isAlignNewLines()) {
+        if (linesCount > 1 && !config.isAlignNewLines) {
             sb.append(" \n");
         }
         appendLines(lines, sb);
@@ -812,9 +827,9 @@ final class Format {
         return sb.toString();
     }
 
-    private static int getLinesCount(String title, String[] lines) {
+    private static int getLinesCount(LogConfig config, String title, String[] lines) {
         int count = (lines == null) ? 0 : lines.length;
-        if (Log.isLogOutlined) {
+        if (config.isLogOutlined) {
             count = count + 2;
         } else if (title != null) {
             count++;
@@ -822,9 +837,9 @@ final class Format {
         return count;
     }
 
-    private static int getLinesCount(String[] lines, Throwable throwable) {
+    private static int getLinesCount(LogConfig config, String[] lines, Throwable throwable) {
         int count = (lines == null) ? 0 : lines.length;
-        if (Log.isLogOutlined) {
+        if (config.isLogOutlined) {
             count = count + 2;
         }
         if (throwable != null) {
@@ -835,9 +850,9 @@ final class Format {
         return count;
     }
 
-    private static String[] createLines(String title, String[] lines, int count) {
+    private static String[] createLines(LogConfig config, String title, String[] lines, int count) {
         String[] lns = new String[count];
-        if (Log.isLogOutlined) {
+        if (config.isLogOutlined) {
             if (title == null) {
                 lns[0] = DELIMITER;
             } else {
@@ -861,10 +876,10 @@ final class Format {
         return lns;
     }
 
-    private static String[] createLines(Throwable throwable, String[] lines, int count) {
+    private static String[] createLines(LogConfig config, Throwable throwable, String[] lines, int count) {
         String[] lns = new String[count];
         int linesCount = (lines == null) ? 0 : lines.length;
-        if (Log.isLogOutlined) {
+        if (config.isLogOutlined) {
             lns[0] = THROWABLE_DELIMITER;
             lns[lns.length - 1] = THROWABLE_DELIMITER;
 
@@ -913,17 +928,13 @@ final class Format {
         }
     }
 
-    private static void appendAlignmentForLines(String[] lines) {
+    private static void appendAlignmentForLines(LogConfig config, String[] lines) {
         if (lines == null || lines.length == 0) {
             return;
         }
-        int spacesCount = maxTagLength + beforeTagSpacesCount;
-        StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < spacesCount; i++) {
-            sb.append(SPACE);
-        }
+        String alignment = config.getAlignment();
         for (int i = 1; i < lines.length; i++) {
-            lines[i] = sb + lines[i];
+            lines[i] = alignment + lines[i];
         }
     }
 
@@ -0,0 +1,73 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Limits applied by {@link ObjectFormatter} while formatting @ToLog arguments and results. 0 is unlimited, negative means "not set"
+ * and is replaced by the global value in {@link #withDefaults(FormatLimits)}.
+ */
+final class FormatLimits {
+
+    static final FormatLimits NONE = new FormatLimits(0, 0, 0);
+
+    /**
+     * Max characters of one formatted argument or result
+     */
+    final int maxLength;
+    /**
+     * Max printed elements of an array
+     */
+    final int maxArrayElements;
+    /**
+     * Max printed elements of a collection or entries of a map
+     */
+    final int maxCollectionSize;
+    /**
+     * The global limits these ones were completed with, null if not completed
+     */
+    final FormatLimits defaults;
+    /**
+     * The limits these ones were capped from, null if not capped
+     */
+    final FormatLimits uncapped;
+
+    FormatLimits(int maxLength, int maxArrayElements, int maxCollectionSize) {
+        this(maxLength, maxArrayElements, maxCollectionSize, null, null);
+    }
+
+    private FormatLimits(int maxLength, int maxArrayElements, int maxCollectionSize, FormatLimits defaults, FormatLimits uncapped) {
+        this.maxLength = maxLength;
+        this.maxArrayElements = maxArrayElements;
+        this.maxCollectionSize = maxCollectionSize;
+        this.defaults = defaults;
+        this.uncapped = uncapped;
+    }
+
+    boolean isLimited() {
+        return maxLength > 0 || maxArrayElements > 0 || maxCollectionSize > 0;
+    }
+
+    boolean isComplete() {
+        return maxLength >= 0 && maxArrayElements >= 0 && maxCollectionSize >= 0;
+    }
+
+    FormatLimits withDefaults(FormatLimits defaults) {
+        if (isComplete()) {
+            return this;
+        }
+        return new FormatLimits(maxLength >= 0 ? maxLength : defaults.maxLength,
+                maxArrayElements >= 0 ? maxArrayElements : defaults.maxArrayElements,
+                maxCollectionSize >= 0 ? maxCollectionSize : defaults.maxCollectionSize,
+                defaults, null);
+    }
+
+    /**
+     * @param caps the values used instead of the unlimited ones
+     * @return the complete limits with no unlimited value
+     */
+    FormatLimits withCaps(FormatLimits caps) {
+        return new FormatLimits(maxLength > 0 ? maxLength : caps.maxLength,
+                maxArrayElements > 0 ? maxArrayElements : caps.maxArrayElements,
+                maxCollectionSize > 0 ? maxCollectionSize : caps.maxCollectionSize,
+                null, this);
+    }
+
+}
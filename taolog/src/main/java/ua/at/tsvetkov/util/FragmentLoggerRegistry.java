@@ -0,0 +1,80 @@
+package ua.at.tsvetkov.util;
+
+import android.app.Activity;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The fragment lifecycle callbacks attached to the activities. The activities are held by weak references and compared by identity,
+ * so a missed onActivityDestroyed doesn't keep an activity or its callback. The collected entries are removed on every access.
+ */
+final class FragmentLoggerRegistry {
+
+    private static final ReferenceQueue<Activity> queue = new ReferenceQueue<>();
+    private static final List<Entry> entries = new ArrayList<>();
+
+    private FragmentLoggerRegistry() {
+
+    }
+
+    /**
+     * @return false if a callback is already attached to the activity
+     */
+    static synchronized boolean register(Activity activity, Object callback) {
+        expunge();
+        if (indexOf(activity) >= 0) {
+            return false;
+        }
+        entries.add(new Entry(activity, callback, queue));
+        return true;
+    }
+
+    /**
+     * @return the callback attached to the activity, null if none
+     */
+    static synchronized Object unregister(Activity activity) {
+        expunge();
+        int index = indexOf(activity);
+        if (index < 0) {
+            return null;
+        }
+        return entries.remove(index).callback;
+    }
+
+    static synchronized int size() {
+        expunge();
+        return entries.size();
+    }
+
+    private static int indexOf(Activity activity) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).get() == activity) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static void expunge() {
+        Reference<? extends Activity> reference;
+        while ((reference = queue.poll()) != null) {
+            entries.remove(reference);
+        }
+    }
+
+    private static final class Entry extends WeakReference<Activity> {
+
+        final Object callback;
+
+        Entry(Activity activity, Object callback, ReferenceQueue<Activity> queue) {
+            super(activity, queue);
+            this.callback = callback;
+        }
+
+    }
+
+}
@@ -0,0 +1,180 @@
+package ua.at.tsvetkov.util;
+
+import android.app.Activity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Startup and navigation timings measured by the lifecycle logger: onCreate→onResume (time to interactive) and onPause→onStop of every
+ * Activity class, onAttach→onDetach of every Fragment class. Needs the lifecycle logger enabled by
+ * {@link Log#enableActivityLifecycleLogger(android.app.Application)} or {@link Log#enableComponentsChangesLogging(android.app.Application)}
+ * (for the fragments). Disabled by default, enable it with {@link #setEnabled(boolean)}.
+ */
+public final class LifecycleStats {
+
+    private static final String TITLE = "Lifecycle statistics";
+    private static final String LOCATION = "LifecycleStats";
+    private static final String CREATE_TO_RESUME = " onCreate→onResume";
+    private static final String PAUSE_TO_STOP = " onPause→onStop";
+    private static final String ATTACH_TO_DETACH = " onAttach→onDetach";
+
+    private static final ConcurrentHashMap<String, MethodTimer> timers = new ConcurrentHashMap<>();
+    private static final Map<Activity, long[]> activityTimes = new WeakHashMap<>();
+    private static final Map<Object, Long> fragmentTimes = new WeakHashMap<>();
+
+    private static volatile boolean isEnabled = false;
+
+    private LifecycleStats() {
+
+    }
+
+    /**
+     * Is the lifecycle timings collected. False by default
+     *
+     * @return is enabled
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Collect the lifecycle timings. The collected values are kept when disabled.
+     *
+     * @param isEnabled is enabled
+     */
+    public static void setEnabled(boolean isEnabled) {
+        LifecycleStats.isEnabled = isEnabled;
+    }
+
+    /**
+     * Timings of every measured transition, sorted by name.
+     *
+     * @return list of snapshots
+     */
+    public static List<MethodStats> snapshot() {
+        List<MethodStats> list = new ArrayList<>();
+        for (MethodTimer timer : timers.values()) {
+            MethodStats stats = timer.snapshot();
+            if (stats.getCount() > 0) {
+                list.add(stats);
+            }
+        }
+        Collections.sort(list, new Comparator<MethodStats>() {
+            @Override
+            public int compare(MethodStats first, MethodStats second) {
+                return first.getName().compareTo(second.getName());
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Clear the collected timings.
+     */
+    public static void reset() {
+        for (MethodTimer timer : timers.values()) {
+            timer.reset();
+        }
+    }
+
+    /**
+     * Logged the timings summary. Each transition in new line.
+     */
+    public static void printSummary() {
+        List<MethodStats> list = snapshot();
+        StringBuilder sb = new StringBuilder();
+        if (list.isEmpty()) {
+            sb.append("No transitions");
+        }
+        for (MethodStats stats : list) {
+            sb.append(stats.toString());
+            sb.append(Format.NL);
+        }
+        Log.write(android.util.Log.INFO, Format.getTag(LOCATION), Format.getFormattedMessage(sb.toString(), TITLE));
+    }
+
+    static void record(Activity activity, ActivityCallback callback) {
+        if (!isEnabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        long createNanos = 0;
+        long pauseNanos = 0;
+        synchronized (activityTimes) {
+            long[] times = activityTimes.get(activity);
+            if (times == null) {
+                times = new long[2];
+                activityTimes.put(activity, times);
+            }
+            switch (callback) {
+                case CREATE:
+                    times[0] = now;
+                    break;
+                case RESUME:
+                    createNanos = times[0];
+                    times[0] = 0;
+                    break;
+                case PAUSE:
+                    times[1] = now;
+                    break;
+                case STOP:
+                    pauseNanos = times[1];
+                    times[1] = 0;
+                    break;
+                case DESTROY:
+                    activityTimes.remove(activity);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (createNanos != 0) {
+            getTimer(activity.getClass().getSimpleName() + CREATE_TO_RESUME).record(now - createNanos, false);
+        }
+        if (pauseNanos != 0) {
+            getTimer(activity.getClass().getSimpleName() + PAUSE_TO_STOP).record(now - pauseNanos, false);
+        }
+    }
+
+    static void fragmentAttached(Object fragment) {
+        if (!isEnabled) {
+            return;
+        }
+        synchronized (fragmentTimes) {
+            fragmentTimes.put(fragment, System.nanoTime());
+        }
+    }
+
+    static void fragmentDetached(Object fragment) {
+        if (!isEnabled) {
+            return;
+        }
+        long now = System.nanoTime();
+        Long attachNanos;
+        synchronized (fragmentTimes) {
+            attachNanos = fragmentTimes.remove(fragment);
+        }
+        if (attachNanos != null) {
+            getTimer(fragment.getClass().getSimpleName() + ATTACH_TO_DETACH).record(now - attachNanos, false);
+        }
+    }
+
+    private static MethodTimer getTimer(String name) {
+        MethodTimer timer = timers.get(name);
+        if (timer == null) {
+            timer = new MethodTimer(name, 1);
+            MethodTimer previous = timers.putIfAbsent(name, timer);
+            if (previous != null) {
+                timer = previous;
+            }
+        }
+        return timer;
+    }
+
+}
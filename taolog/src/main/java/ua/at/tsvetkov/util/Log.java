@@ -37,9 +37,9 @@ import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 import android.support.v7.app.AppCompatActivity;
 
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Extended logger. Allows you to automatically adequately logged class, method and line call in the log. Makes it easy to write logs. For
@@ -49,24 +49,53 @@ import java.util.Map;
  */
 public class Log {
 
-    static volatile boolean isDisabled = false;
-    static volatile boolean isLogOutlined = true;
-    static volatile boolean isAlignNewLines = false;
+    /**
+     * All the settings, read once per call and replaced as a whole by the setters
+     */
+    static volatile LogConfig config = LogConfig.DEFAULT;
+    private static volatile LogWriter writer = LogWriter.ANDROID;
     private static final String FRAGMENT_STACK = "FRAGMENT STACK [";
     private static volatile Application.ActivityLifecycleCallbacks activityLifecycleCallback = null;
-    private static volatile HashMap<String, FragmentManager.FragmentLifecycleCallbacks> fragmentLifecycleCallbacks = new HashMap<>();
-    private static volatile HashMap<String, android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks> supportFragmentLifecycleCallbacks = new HashMap<>();
 
     private Log() {
     }
 
+    /**
+     * The current settings
+     *
+     * @return the immutable settings snapshot
+     */
+    public static LogConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * Replace all the settings at once. The calls in progress finish with the previous settings, the following calls use the new ones.
+     * Build it with {@link LogConfig#builder()} or change the current one with {@link #getConfig()}.toBuilder().
+     *
+     * @param config the new settings
+     */
+    public static synchronized void setConfig(@NonNull LogConfig config) {
+        Log.config = config;
+        LogAspect.updateTracing();
+    }
+
+    /**
+     * Grows the longest tag padding of the aligned tags. Keeps the config if it was replaced meanwhile by a config with longer padding.
+     */
+    static synchronized void growMaxTagLength(int maxTagLength) {
+        if (config.maxTagLength < maxTagLength) {
+            config = config.withMaxTagLength(maxTagLength);
+        }
+    }
+
     /**
      * Is print a log string in new lines with spaces (as in AndroidStudio before 3.1). False by default
      *
      * @return
      */
     public static boolean isAlignNewLines() {
-        return isAlignNewLines;
+        return config.isAlignNewLines;
     }
 
     /**
@@ -74,8 +103,19 @@ public class Log {
      *
      * @param isArrangeNewLines
      */
-    public static void setAlignNewLines(boolean isArrangeNewLines) {
-        Log.isAlignNewLines = isArrangeNewLines;
+    public static synchronized void setAlignNewLines(boolean isArrangeNewLines) {
+        config = config.toBuilder().setAlignNewLines(isArrangeNewLines).build();
+    }
+
+    /**
+     * Set to print a log string in new lines with spaces (as in AndroidStudio before 3.1). The width of the logcat prefix is
+     * calculated from the application package name instead of looking into the stack on the first aligned message.
+     *
+     * @param isArrangeNewLines
+     * @param packageName       the application package name, like BuildConfig.APPLICATION_ID
+     */
+    public static synchronized void setAlignNewLines(boolean isArrangeNewLines, @NonNull String packageName) {
+        config = config.toBuilder().setAlignNewLines(isArrangeNewLines).setPackageName(packageName).build();
     }
 
     /**
@@ -108,7 +148,7 @@ public class Log {
         if (application == null) {
             Log.w("Can't enable Activity auto logger, application == null");
         }
-        if (isDisabled) {
+        if (config.isDisabled) {
             return;
         }
         if (activityLifecycleCallback == null) {
@@ -116,7 +156,7 @@ public class Log {
 
                 @Override
                 public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.CREATE);
                     if (isAttachFragmentLogger) {
                         enableFragmentStackChangesLogger(activity);
                     }
@@ -124,39 +164,41 @@ public class Log {
 
                 @Override
                 public void onActivityStarted(Activity activity) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.START);
                 }
 
                 @Override
                 public void onActivityResumed(Activity activity) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.RESUME);
                 }
 
                 @Override
                 public void onActivityPaused(Activity activity) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.PAUSE);
                 }
 
                 @Override
                 public void onActivityStopped(Activity activity) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.STOP);
                 }
 
                 @Override
                 public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.SAVE_INSTANCE_STATE);
                 }
 
                 @Override
                 public void onActivityDestroyed(Activity activity) {
-                    printActivityCallMethod(activity);
+                    printActivityCallMethod(activity, ActivityCallback.DESTROY);
                     if (isAttachFragmentLogger) {
                         disableFragmentStackChangesLogger(activity);
                     }
                 }
 
-                private void printActivityCallMethod(Activity activity) {
-                    android.util.Log.v(Format.getActivityTag(activity), Format.getActivityMethodInfo(activity));
+                private void printActivityCallMethod(Activity activity, ActivityCallback callback) {
+                    ActivityLogInfo info = ActivityLogInfo.get(activity);
+                    print(android.util.Log.VERBOSE, info.getTag(Log.config, callback), info.getBanner(callback));
+                    LifecycleStats.record(activity, callback);
                 }
 
             };
@@ -181,7 +223,7 @@ public class Log {
      */
     @TargetApi(Build.VERSION_CODES.ICE_CREAM_SANDWICH)
     public static void disableActivityLifecycleLogger(@NonNull Application application) {
-        if (isDisabled) {
+        if (config.isDisabled) {
             return;
         }
         if (application == null) {
@@ -197,20 +239,23 @@ public class Log {
      * @param activity
      */
     public static void enableFragmentStackChangesLogger(@NonNull Activity activity) {
-        if (isDisabled) {
-            if (activity instanceof AppCompatActivity) {
-                android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks callback = createSupportFragmentLifecycleCallbacks();
-                supportFragmentLifecycleCallbacks.put(activity.toString(), callback);
+        if (config.isDisabled) {
+            return;
+        }
+        if (activity instanceof AppCompatActivity) {
+            android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks callback = createSupportFragmentLifecycleCallbacks();
+            if (FragmentLoggerRegistry.register(activity, callback)) {
                 ((AppCompatActivity) activity).getSupportFragmentManager().registerFragmentLifecycleCallbacks(callback, true);
                 Log.i("SupportFragment Lifecycle Logger attached");
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                FragmentManager.FragmentLifecycleCallbacks callback = createFragmentLifecycleCallbacks();
-                fragmentLifecycleCallbacks.put(activity.toString(), callback);
+            }
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            FragmentManager.FragmentLifecycleCallbacks callback = createFragmentLifecycleCallbacks();
+            if (FragmentLoggerRegistry.register(activity, callback)) {
                 activity.getFragmentManager().registerFragmentLifecycleCallbacks(callback, true);
                 Log.i("Fragment Lifecycle Logger attached");
-            } else {
-                Log.w("Fragment Lifecycle Logger requires API level 26");
             }
+        } else {
+            Log.w("Fragment Lifecycle Logger requires API level 26");
         }
     }
 
@@ -220,18 +265,16 @@ public class Log {
      * @param activity
      */
     public static void disableFragmentStackChangesLogger(@NonNull Activity activity) {
-        if (isDisabled) {
-            if (activity instanceof AppCompatActivity) {
-                android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks callback = supportFragmentLifecycleCallbacks.get(activity.toString());
-                ((AppCompatActivity) activity).getSupportFragmentManager().unregisterFragmentLifecycleCallbacks(callback);
-                supportFragmentLifecycleCallbacks.remove(activity.toString());
-            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                FragmentManager.FragmentLifecycleCallbacks callback = fragmentLifecycleCallbacks.get(activity.toString());
-                activity.getFragmentManager().unregisterFragmentLifecycleCallbacks(callback);
-                fragmentLifecycleCallbacks.remove(activity.toString());
-            }
-            Log.i("Fragment Lifecycle Logger detached");
+        Object callback = FragmentLoggerRegistry.unregister(activity);
+        if (callback instanceof android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks) {
+            ((AppCompatActivity) activity).getSupportFragmentManager()
+                    .unregisterFragmentLifecycleCallbacks((android.support.v4.app.FragmentManager.FragmentLifecycleCallbacks) callback);
+        } else if (callback instanceof FragmentManager.FragmentLifecycleCallbacks) {
+            activity.getFragmentManager().unregisterFragmentLifecycleCallbacks((FragmentManager.FragmentLifecycleCallbacks) callback);
+        } else {
+            return;
         }
+        Log.i("Fragment Lifecycle Logger detached");
     }
 
     /**
@@ -239,8 +282,8 @@ public class Log {
      *
      * @param isLogOutlined
      */
-    public static void setLogOutlined(boolean isLogOutlined) {
-        Log.isLogOutlined = isLogOutlined;
+    public static synchronized void setLogOutlined(boolean isLogOutlined) {
+        config = config.toBuilder().setLogOutlined(isLogOutlined).build();
     }
 
 
@@ -250,7 +293,7 @@ public class Log {
      * @return is disabled
      */
     public static boolean isDisabled() {
-        return isDisabled;
+        return config.isDisabled;
     }
 
     /**
@@ -258,8 +301,8 @@ public class Log {
      *
      * @param isDisabled is disabled
      */
-    public static void setDisabled(boolean isDisabled) {
-        Log.isDisabled = isDisabled;
+    public static synchronized void setDisabled(boolean isDisabled) {
+        setConfig(config.toBuilder().setDisabled(isDisabled).build());
     }
 
     /**
@@ -267,20 +310,290 @@ public class Log {
      *
      * @param stamp
      */
-    public static void setStamp(String stamp) {
-        Format.stamp = stamp;
+    public static synchronized void setStamp(String stamp) {
+        config = config.toBuilder().setStamp(stamp).build();
+    }
+
+    /**
+     * Log only the @ToLog calls which take at least so many microseconds. Applies to the methods without own threshold. 0 (by default)
+     * logs every call.
+     *
+     * @param thresholdMicros minimal duration of a logged call
+     */
+    public static synchronized void setToLogThresholdMicros(long thresholdMicros) {
+        config = config.toBuilder().setToLogThresholdMicros(thresholdMicros).build();
+    }
+
+    /**
+     * Minimal duration of a logged @ToLog call in microseconds
+     *
+     * @return the threshold
+     */
+    public static long getToLogThresholdMicros() {
+        return config.getToLogThresholdMicros();
+    }
+
+    /**
+     * Is @ToLog methods only marked as systrace sections, without logcat output. False by default
+     *
+     * @return is systrace only
+     */
+    public static boolean isToLogSystraceOnly() {
+        return config.isToLogSystraceOnly;
+    }
+
+    /**
+     * Profiling mode for @ToLog. Every call is marked as a systrace section named like "Boo.isNeed" (API 18+), nothing is formatted or
+     * written to logcat. Sampling and thresholds are not applied.
+     *
+     * @param isSystraceOnly is systrace only
+     */
+    public static synchronized void setToLogSystraceOnly(boolean isSystraceOnly) {
+        config = config.toBuilder().setToLogSystraceOnly(isSystraceOnly).build();
+    }
+
+    /**
+     * Limits for formatting the @ToLog arguments and results. The formatting stops as soon as a limit is reached, so a method taking a
+     * large array or returning a large list costs no more than the limits. Applies to the methods without own limits. 0 is unlimited
+     * (by default).
+     *
+     * @param maxLength         max characters of one argument or result
+     * @param maxArrayElements  max printed elements of an array
+     * @param maxCollectionSize max printed elements of a collection or entries of a map
+     */
+    public static synchronized void setToLogLimits(int maxLength, int maxArrayElements, int maxCollectionSize) {
+        config = config.toBuilder().setToLogLimits(maxLength, maxArrayElements, maxCollectionSize).build();
     }
 
+    /**
+     * Suppress the same message logged again from the same place within the window. The first message is logged, the repeats are
+     * counted without formatting and replaced by one "Last message repeated N times" line when the window closes. 0 (by default)
+     * disables the suppression.
+     *
+     * @param window the window length
+     * @param unit   time unit of the window
+     */
+    public static void setRepeatSuppression(long window, TimeUnit unit) {
+        RepeatFilter.setWindow(window, unit);
+    }
+
+    /**
+     * Limit the messages of one level, like android.util.Log.DEBUG. The messages over the limit are dropped before the tag is created.
+     *
+     * @param level the log level
+     * @param limit the policy, null removes the limit
+     * @throws IllegalArgumentException if the level is not from android.util.Log.VERBOSE to android.util.Log.ASSERT
+     */
+    public static void setRateLimit(int level, @Nullable RateLimit limit) {
+        RateLimiter.setLevelLimit(level, limit);
+    }
+
+    /**
+     * Limit the messages of each call site separately, for example a log line in a loop which suddenly runs too often. The calls of a
+     * {@link Logger} without line numbers share the call site of its tag.
+     *
+     * @param limit the policy, null removes the limit
+     */
+    public static void setCallSiteRateLimit(@Nullable RateLimit limit) {
+        RateLimiter.setCallSiteLimit(limit);
+    }
+
+    /**
+     * Limit the messages of all call sites in one source file together. The file name is the one shown in the tag.
+     *
+     * @param fileName the source file name, like "MainActivity.java"
+     * @param limit    the policy, null removes the limit
+     */
+    public static void setFileRateLimit(@NonNull String fileName, @Nullable RateLimit limit) {
+        RateLimiter.setFileLimit(fileName, limit);
+    }
+
+    /**
+     * Limit the messages of one tag, like the tag of {@link #forTag(String)} or the "(Boo.java:14) isNeed" location, without the stamp.
+     *
+     * @param tag   the tag
+     * @param limit the policy, null removes the limit
+     */
+    public static void setTagRateLimit(@NonNull String tag, @Nullable RateLimit limit) {
+        RateLimiter.setTagLimit(tag, limit);
+    }
+
+    /**
+     * Number of the messages dropped by the rate limits. The count is also logged once a second while it grows.
+     *
+     * @return dropped messages count
+     */
+    public static long getDroppedMessages() {
+        return RateLimiter.getDropped();
+    }
+
+    /**
+     * Follow the "adb shell setprop log.tag.TAG LEVEL" settings of the tag (max 23 characters). The messages below the level are
+     * dropped before the tag is created. With isPerFile the source file name can enable VERBOSE and DEBUG messages of one file, like
+     * "adb shell setprop log.tag.MainActivity VERBOSE". The settings are read once, call {@link #refreshLoggable()} after a change.
+     * Disabled by default, null disables.
+     *
+     * @param tag       the application tag
+     * @param isPerFile check the source file names too
+     */
+    public static void setLoggableTag(@Nullable String tag, boolean isPerFile) {
+        LoggableFilter.setTag(tag, isPerFile);
+    }
+
+    /**
+     * Read the "log.tag.*" settings again.
+     */
+    public static void refreshLoggable() {
+        LoggableFilter.refresh();
+    }
+
+    /**
+     * Read the "log.tag.*" settings again periodically on a background thread. 0 stops.
+     *
+     * @param period period between refreshes
+     * @param unit   time unit of the period
+     */
+    public static void setLoggableRefreshPeriod(long period, TimeUnit unit) {
+        LoggableFilter.setRefreshPeriod(period, unit);
+    }
+
+    /**
+     * Set the output layout of the structured events. OUTLINED by default
+     *
+     * @param eventFormat the layout
+     */
+    public static synchronized void setEventFormat(@NonNull EventFormat eventFormat) {
+        config = config.toBuilder().setEventFormat(eventFormat).build();
+    }
+
+    /**
+     * Set the destination of the formatted messages. A replaced {@link CoalescingWriter} is closed, the other writers are flushed.
+     *
+     * @param writer the writer, null for logcat (by default)
+     */
+    public static synchronized void setWriter(@Nullable LogWriter writer) {
+        LogWriter previous = Log.writer;
+        Log.writer = writer == null ? LogWriter.ANDROID : writer;
+        if (previous instanceof CoalescingWriter) {
+            ((CoalescingWriter) previous).close();
+        } else {
+            previous.flush();
+        }
+    }
+
+    /**
+     * Merge the consecutive messages of the same tag and level written within the window into one logcat entry, see
+     * {@link CoalescingWriter}. ERROR and ASSERT messages are written immediately. 0 (by default) writes every message directly.
+     *
+     * @param window how long an entry collects the following messages
+     * @param unit   time unit of the window
+     */
+    public static void setCoalescing(long window, TimeUnit unit) {
+        setWriter(window > 0 ? new CoalescingWriter(LogWriter.ANDROID, window, unit) : null);
+    }
+
+    /**
+     * Write the messages buffered by the writer.
+     */
+    public static void flush() {
+        writer.flush();
+    }
+
+    // =========================== Loggers ===============================
+
+    /**
+     * Logger with the fixed tag of the class, like "Boo". The tag is not searched in the stack on every call.
+     *
+     * @param clazz the class which logs
+     * @return new logger
+     */
+    public static Logger forClass(@NonNull Class<?> clazz) {
+        return forClass(clazz, false);
+    }
+
+    /**
+     * Logger with the tag of the class. With isLineNumbered the tag is the same as of the Log methods, like "(Boo.java:14) isNeed",
+     * found by a short lookup of the first frame of the class instead of the full stack walk.
+     *
+     * @param clazz          the class which logs
+     * @param isLineNumbered add the source line and the method to the tag
+     * @return new logger
+     */
+    public static Logger forClass(@NonNull Class<?> clazz, boolean isLineNumbered) {
+        String className = clazz.getName();
+        return new Logger(className, className.substring(className.lastIndexOf('.') + 1), isLineNumbered);
+    }
+
+    /**
+     * Logger with a custom fixed tag.
+     *
+     * @param tag the tag
+     * @return new logger
+     */
+    public static Logger forTag(@NonNull String tag) {
+        return new Logger(null, tag, false);
+    }
+
+    // =========================== Structured events ===============================
+
+    /**
+     * Start a structured VERBOSE message, like Log.atVerbose().kv("key", value).msg("message"), see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public static LogEvent atVerbose() {
+        return at(android.util.Log.VERBOSE);
+    }
+
+    /**
+     * Start a structured DEBUG message, like Log.atDebug().kv("key", value).msg("message"), see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public static LogEvent atDebug() {
+        return at(android.util.Log.DEBUG);
+    }
+
+    /**
+     * Start a structured INFO message, like Log.atInfo().kv("key", value).msg("message"), see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public static LogEvent atInfo() {
+        return at(android.util.Log.INFO);
+    }
+
+    /**
+     * Start a structured WARN message, like Log.atWarn().kv("key", value).msg("message"), see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public static LogEvent atWarn() {
+        return at(android.util.Log.WARN);
+    }
+
+    /**
+     * Start a structured ERROR message, like Log.atError().kv("key", value).msg("message"), see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public static LogEvent atError() {
+        return at(android.util.Log.ERROR);
+    }
+
+    // ==========================================================
+
     /**
      * Send a VERBOSE log message.
      *
      * @param message The message you would like logged.
      */
     public static void v(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.VERBOSE, null, message);
     }
 
     /**
@@ -289,10 +602,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void d(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.d(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.DEBUG, null, message);
     }
 
     /**
@@ -301,10 +615,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void i(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.INFO, null, message);
     }
 
     /**
@@ -313,10 +628,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void w(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.w(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.WARN, null, message);
     }
 
     /**
@@ -325,10 +641,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void e(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.ERROR, null, message);
     }
 
     /**
@@ -339,10 +656,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void wtf(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.wtf(Format.getTag(), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.ASSERT, null, message);
     }
 
     // ==========================================================
@@ -354,10 +672,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void v(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.v(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.VERBOSE, null, message, tr);
     }
 
     /**
@@ -367,10 +686,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void d(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.d(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.DEBUG, null, message, tr);
     }
 
     /**
@@ -380,10 +700,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void i(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.INFO, null, message, tr);
     }
 
     /**
@@ -393,10 +714,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void w(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.w(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.WARN, null, message, tr);
     }
 
     /**
@@ -406,10 +728,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void e(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.ERROR, null, message, tr);
     }
 
     /**
@@ -422,10 +745,11 @@ public class Log {
         if (tr instanceof RuntimeException) {
             throw (RuntimeException) tr;
         }
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.ERROR, null, message, tr);
     }
 
     /**
@@ -435,10 +759,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void wtf(String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.wtf(Format.getTag(), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.ASSERT, null, message, tr);
     }
 
     // ==========================================================
@@ -449,10 +774,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void v(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.v(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.VERBOSE, null, null, tr);
     }
 
     /**
@@ -461,10 +787,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void d(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.d(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.DEBUG, null, null, tr);
     }
 
     /**
@@ -473,10 +800,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void i(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.INFO, null, null, tr);
     }
 
     /**
@@ -485,10 +813,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void w(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.w(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.WARN, null, null, tr);
     }
 
     /**
@@ -497,10 +826,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void e(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.ERROR, null, null, tr);
     }
 
     /**
@@ -512,10 +842,11 @@ public class Log {
         if (tr instanceof RuntimeException) {
             throw (RuntimeException) tr;
         }
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.ERROR, null, null, tr);
     }
 
     /**
@@ -524,10 +855,11 @@ public class Log {
      * @param tr An throwable to log
      */
     public static void wtf(Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.wtf(Format.getTag(), Format.getFormattedThrowable(tr));
+        printThrowable(config, android.util.Log.ASSERT, null, null, tr);
     }
 
     // ==========================================================
@@ -541,10 +873,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void v(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.v(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.VERBOSE, obj, message);
     }
 
     /**
@@ -555,10 +888,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void d(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.d(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.DEBUG, obj, message);
     }
 
     /**
@@ -569,10 +903,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void i(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.INFO, obj, message);
     }
 
     /**
@@ -583,10 +918,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void w(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.w(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.WARN, obj, message);
     }
 
     /**
@@ -598,10 +934,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void e(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.ERROR, obj, message);
     }
 
     /**
@@ -613,10 +950,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void wtf(Object obj, String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.wtf(Format.gatExtendedTag(obj), Format.getFormattedMessage(message));
+        printMessage(config, android.util.Log.ASSERT, obj, message);
     }
 
     // ==========================================================
@@ -631,10 +969,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void v(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.v(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.VERBOSE, obj, message, tr);
     }
 
     /**
@@ -647,10 +986,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void d(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.d(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.DEBUG, obj, message, tr);
     }
 
     /**
@@ -663,10 +1003,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void i(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.INFO, obj, message, tr);
     }
 
     /**
@@ -679,10 +1020,11 @@ public class Log {
      * @param tr      An throwable to log
      */
     public static void w(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.w(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.WARN, obj, message, tr);
     }
 
     /**
@@ -695,10 +1037,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void e(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.e(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.ERROR, obj, message, tr);
     }
 
     /**
@@ -711,10 +1054,11 @@ public class Log {
      * @param message The message you would like logged.
      */
     public static void wtf(Object obj, String message, Throwable tr) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.wtf(Format.gatExtendedTag(obj), Format.getFormattedThrowable(message, tr));
+        printThrowable(config, android.util.Log.ASSERT, obj, message, tr);
     }
 
     // =========================== Collections, arrays and objects ===============================
@@ -734,10 +1078,11 @@ public class Log {
      * @param map a Map
      */
     public static void map(Map<?, ?> map, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.map(map), title));
+        printTitled(config, android.util.Log.INFO, Format.map(map), title);
     }
 
     /**
@@ -755,10 +1100,11 @@ public class Log {
      * @param list a List
      */
     public static void list(List<?> list, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.list(list), title));
+        printTitled(config, android.util.Log.INFO, Format.list(list), title);
     }
 
     /**
@@ -776,10 +1122,11 @@ public class Log {
      * @param array an array
      */
     public static <T> void array(T[] array, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), title));
+        printTitled(config, android.util.Log.INFO, Format.array(array), title);
     }
 
     /**
@@ -797,10 +1144,11 @@ public class Log {
      * @param array an array
      */
     public static void array(int[] array, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), title));
+        printTitled(config, android.util.Log.INFO, Format.array(array), title);
     }
 
     /**
@@ -818,10 +1166,11 @@ public class Log {
      * @param array an array
      */
     public static void array(float[] array, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), title));
+        printTitled(config, android.util.Log.INFO, Format.array(array), title);
     }
 
     /**
@@ -839,10 +1188,11 @@ public class Log {
      * @param array an array
      */
     public static void array(boolean[] array, String title) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), title));
+        printTitled(config, android.util.Log.INFO, Format.array(array), title);
     }
 
     /**
@@ -851,10 +1201,11 @@ public class Log {
      * @param array an array
      */
     public static void array(char[] array) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), Format.ARRAY));
+        printTitled(config, android.util.Log.INFO, Format.array(array), Format.ARRAY);
     }
 
     /**
@@ -863,10 +1214,11 @@ public class Log {
      * @param array an array
      */
     public static void array(double[] array) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), Format.ARRAY));
+        printTitled(config, android.util.Log.INFO, Format.array(array), Format.ARRAY);
     }
 
     /**
@@ -875,10 +1227,11 @@ public class Log {
      * @param array an array
      */
     public static void array(long[] array) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.array(array), Format.ARRAY));
+        printTitled(config, android.util.Log.INFO, Format.array(array), Format.ARRAY);
     }
 
     /**
@@ -887,10 +1240,11 @@ public class Log {
      * @param obj a class for representation
      */
     public static void objl(Object obj) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.objl(obj), obj.getClass().getSimpleName()));
+        printTitled(config, android.util.Log.INFO, Format.objl(obj), obj.getClass().getSimpleName());
     }
 
     /**
@@ -899,10 +1253,11 @@ public class Log {
      * @param obj a class for representation
      */
     public static void objn(Object obj) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
-        android.util.Log.i(Format.getTag(), Format.getFormattedMessage(Format.objl(obj), obj.getClass().getSimpleName()));
+        printTitled(config, android.util.Log.INFO, Format.objl(obj), obj.getClass().getSimpleName());
     }
 
     /**
@@ -950,13 +1305,14 @@ public class Log {
      * Logged the current Thread info
      */
     public static void threadInfo() {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
         Format.addThreadInfo(sb, Thread.currentThread());
         sb.append(Format.NL);
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
     }
 
     /**
@@ -965,28 +1321,30 @@ public class Log {
      * @param throwable An throwable to log
      */
     public static void threadInfo(Throwable throwable) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
         Format.addThreadInfo(sb, Thread.currentThread());
         sb.append(Format.NL);
         Format.addStackTrace(sb, throwable);
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
     }
 
     /**
      * Logged the current Thread info and a message
      */
     public static void threadInfo(@Nullable String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
         Format.addThreadInfo(sb, Thread.currentThread());
         sb.append(Format.NL);
         Format.addMessage(sb, message);
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
     }
 
     /**
@@ -996,7 +1354,8 @@ public class Log {
      * @param throwable An throwable to log
      */
     public static void threadInfo(String message, Throwable throwable) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
@@ -1004,7 +1363,7 @@ public class Log {
         sb.append(Format.NL);
         Format.addMessage(sb, message);
         Format.addStackTrace(sb, throwable);
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
     }
 
     /**
@@ -1014,14 +1373,15 @@ public class Log {
      * @param throwable An throwable to log
      */
     public static void threadInfo(Thread thread, Throwable throwable) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
         Format.addThreadInfo(sb, thread);
         sb.append(Format.NL);
         Format.addStackTrace(sb, throwable);
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
     }
 
     /**
@@ -1037,13 +1397,124 @@ public class Log {
      * @param message a custom message
      */
     public static void stackTrace(String message) {
-        if (isDisabled) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
             return;
         }
         StringBuilder sb = new StringBuilder();
         Format.addMessage(sb, message);
         Format.addStackTrace(sb, Thread.currentThread());
-        android.util.Log.v(Format.getTag(), Format.getFormattedMessage(sb.toString()));
+        printMessage(config, android.util.Log.VERBOSE, null, sb.toString());
+    }
+
+    // =========================== Output ===============================
+
+    private static LogEvent at(int priority) {
+        if (config.isDisabled || !isAccepted(priority)) {
+            return LogEvent.NOOP;
+        }
+        return LogEvent.obtain(null, priority);
+    }
+
+    private static void printMessage(LogConfig config, int priority, Object obj, String message) {
+        if (!isAccepted(priority)) {
+            return;
+        }
+        String tag = getTag(config, obj);
+        if (isAccepted(priority, tag, message, null)) {
+            print(priority, tag, Format.getFormattedMessage(config, message, null));
+        }
+    }
+
+    private static void printTitled(LogConfig config, int priority, String message, String title) {
+        if (!isAccepted(priority)) {
+            return;
+        }
+        String tag = Format.getTag(config);
+        if (isAccepted(priority, tag, message, title)) {
+            print(priority, tag, Format.getFormattedMessage(config, message, title));
+        }
+    }
+
+    private static void printThrowable(LogConfig config, int priority, Object obj, String message, Throwable tr) {
+        if (!isAccepted(priority)) {
+            return;
+        }
+        String tag = getTag(config, obj);
+        if (isAccepted(priority, tag, message, RepeatFilter.isEnabled() ? String.valueOf(tr) : null)) {
+            print(priority, tag, Format.getFormattedThrowable(config, message, tr));
+        }
+    }
+
+    /**
+     * Entry point of the calls rewritten by {@link LogCallAspect}, the tag comes from the call site instead of the stack.
+     */
+    static void printAt(CallSite site, String message) {
+        LogConfig config = Log.config;
+        int priority = site.priority;
+        if (config.isDisabled || !isAccepted(priority)) {
+            return;
+        }
+        String tag = site.getTag(config);
+        if (isAccepted(priority, site, tag, message, null)) {
+            print(priority, tag, Format.getFormattedMessage(config, message, null));
+        }
+    }
+
+    /**
+     * Entry point of the calls rewritten by {@link LogCallAspect}, the tag comes from the call site instead of the stack.
+     */
+    static void printAt(CallSite site, String message, Throwable tr) {
+        LogConfig config = Log.config;
+        int priority = site.priority;
+        if (config.isDisabled || !isAccepted(priority)) {
+            return;
+        }
+        String tag = site.getTag(config);
+        if (isAccepted(priority, site, tag, message, RepeatFilter.isEnabled() ? String.valueOf(tr) : null)) {
+            print(priority, tag, Format.getFormattedThrowable(config, message, tr));
+        }
+    }
+
+    /**
+     * The filters which don't need the call site, checked before the stack walk for the tag.
+     */
+    static boolean isAccepted(int priority) {
+        return LoggableFilter.isLoggable(priority) && RateLimiter.hasToken(priority);
+    }
+
+    /**
+     * The filters of the call site, checked before the message is formatted.
+     */
+    static boolean isAccepted(int priority, String tag, String message, String detail) {
+        return isAccepted(priority, tag, tag, message, detail);
+    }
+
+    /**
+     * @param site the call site for the rate limit, a {@link CallSite} or the tag
+     */
+    static boolean isAccepted(int priority, Object site, String tag, String message, String detail) {
+        return LoggableFilter.isLoggable(priority, tag) && !RepeatFilter.isRepeated(priority, tag, message, detail)
+                && RateLimiter.tryAcquire(priority, site, tag);
+    }
+
+    private static String getTag(LogConfig config, Object obj) {
+        return obj == null ? Format.getTag(config) : Format.gatExtendedTag(config, obj);
+    }
+
+    /**
+     * Write an already formatted message with the {@link LogContext} of the thread before it.
+     */
+    static void print(int priority, String tag, String message) {
+        LogContext.Snapshot context = LogContext.current();
+        write(priority, tag, context == null ? message : context.prefix + message);
+    }
+
+    /**
+     * Write an already formatted message as is to the {@link LogWriter}.
+     */
+    static void write(int priority, String tag, String message) {
+        writer.write(priority, tag, message);
     }
 
     private static FragmentManager.FragmentLifecycleCallbacks createFragmentLifecycleCallbacks() {
@@ -1052,6 +1523,7 @@ public class Log {
             @Override
             public void onFragmentAttached(FragmentManager fm, Fragment fr, Context context) {
                 super.onFragmentAttached(fm, fr, context);
+                LifecycleStats.fragmentAttached(fr);
                 int backStackCount = fm.getBackStackEntryCount();
                 Format.printFragmentsStack(fr.getActivity().getLocalClassName(), fm, FRAGMENT_STACK + backStackCount + "]", "attached " + fr.getClass().getSimpleName(), backStackCount);
             }
@@ -1059,6 +1531,7 @@ public class Log {
             @Override
             public void onFragmentDetached(FragmentManager fm, Fragment fr) {
                 super.onFragmentDetached(fm, fr);
+                LifecycleStats.fragmentDetached(fr);
                 int backStackCount = fm.getBackStackEntryCount();
                 Format.printFragmentsStack(fr.getActivity().getLocalClassName(), fm, FRAGMENT_STACK + backStackCount + "]", "detached " + fr.getClass().getSimpleName(), backStackCount);
             }
@@ -1071,6 +1544,7 @@ public class Log {
             @Override
             public void onFragmentAttached(android.support.v4.app.FragmentManager fm, android.support.v4.app.Fragment fr, Context context) {
                 super.onFragmentAttached(fm, fr, context);
+                LifecycleStats.fragmentAttached(fr);
                 int backStackCount = fm.getBackStackEntryCount();
                 Format.printFragmentsStack(fr.getActivity().getLocalClassName(), fm, FRAGMENT_STACK + backStackCount + "]", "attached " + fr.getClass().getSimpleName(), backStackCount);
             }
@@ -1078,6 +1552,7 @@ public class Log {
             @Override
             public void onFragmentDetached(android.support.v4.app.FragmentManager fm, android.support.v4.app.Fragment fr) {
                 super.onFragmentDetached(fm, fr);
+                LifecycleStats.fragmentDetached(fr);
                 int backStackCount = fm.getBackStackEntryCount();
                 Format.printFragmentsStack(fr.getActivity().getLocalClassName(), fm, FRAGMENT_STACK + backStackCount + "]", "detached " + fr.getClass().getSimpleName(), backStackCount);
             }
@@ -3,20 +3,18 @@ package ua.at.tsvetkov.util;
 import android.os.Build;
 import android.os.Trace;
 
-import org.aspectj.lang.JoinPoint;
 import org.aspectj.lang.ProceedingJoinPoint;
-import org.aspectj.lang.Signature;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Pointcut;
-import org.aspectj.lang.reflect.CodeSignature;
-import org.aspectj.lang.reflect.MethodSignature;
-
-import java.util.concurrent.TimeUnit;
 
 @Aspect
 public class LogAspect {
 
+    /**
+     * The only thing checked by a woven call when tracing is off. Kept in sync by {@link #updateTracing()}
+     */
+    static volatile boolean isTracing = true;
 
     @Pointcut("within(@ua.at.tsvetkov.annotations.ToLog *)")
     public void withinAnnotatedClass() {}
@@ -33,97 +31,150 @@ public class LogAspect {
     @Pointcut("execution(@ua.at.tsvetkov.annotations.ToLog *.new(..)) || constructorInsideAnnotatedType()")
     public void constructor() {}
 
-    @Around("method() || constructor()")
+    @Pointcut("if()")
+    public static boolean tracing() {
+        return isTracing;
+    }
+
+    @Around("(method() || constructor()) && tracing()")
     public Object logAndExecute(ProceedingJoinPoint joinPoint) throws Throwable {
-        String startInfo =enterMethod(joinPoint);
+        TracedMethod method = TracedMethod.get(joinPoint.getStaticPart());
+        LogConfig config = Log.config;
+        boolean isEnabled = !config.isDisabled;
+        boolean isSystraceOnly = config.isToLogSystraceOnly;
+        long skipped = isEnabled && !isSystraceOnly ? method.sample() : CallSampler.NOT_SAMPLED;
+        boolean isLogged = skipped != CallSampler.NOT_SAMPLED;
+        boolean isTraced = isLogged || (isEnabled && isSystraceOnly);
+        boolean isProfiled = ToLogProfiler.isEnabled();
+        boolean isExported = TraceEventExporter.isEnabled();
+        long thresholdNanos = method.getThresholdNanos();
+
+        CallStack stack = null;
+        int depth = 0;
+        if ((isEnabled && !isSystraceOnly) || isProfiled) {
+            stack = CallStack.get();
+            depth = stack.enter(method, isProfiled);
+        }
+
+        Object[] parameterValues = null;
+        String startInfo = null;
+        if (isLogged || isExported) {
+            parameterValues = joinPoint.getArgs();
+        }
+        if (isLogged && thresholdNanos <= 0) {
+            startInfo = enterMethod(method, parameterValues, skipped, depth);
+        }
+        if (isTraced) {
+            beginSection(method.section);
+        }
 
         long startNanos = System.nanoTime();
-        Object result = joinPoint.proceed();
-        long stopNanos = System.nanoTime();
-        long lengthMillis = TimeUnit.NANOSECONDS.toMillis(stopNanos - startNanos);
+        Object result;
+        try {
+            result = joinPoint.proceed();
+        } catch (Throwable throwable) {
+            long lengthNanos = System.nanoTime() - startNanos;
+            if (isTraced) {
+                endSection();
+            }
+            if (stack != null) {
+                stack.exit(lengthNanos);
+            }
+            if (ToLogStats.isEnabled()) {
+                ToLogStats.record(method, lengthNanos, true);
+            }
+            if (isExported) {
+                TraceEventExporter.record(method, startNanos, lengthNanos, parameterValues);
+            }
+            throw throwable;
+        }
+        long lengthNanos = System.nanoTime() - startNanos;
+        long selfNanos = stack != null ? stack.exit(lengthNanos) : lengthNanos;
+        if (ToLogStats.isEnabled()) {
+            ToLogStats.record(method, lengthNanos, false);
+        }
+        if (isExported) {
+            TraceEventExporter.record(method, startNanos, lengthNanos, parameterValues);
+        }
 
-        exitMethod(joinPoint, result, lengthMillis, startInfo);
+        if (isTraced) {
+            endSection();
+        }
+        if (isLogged && lengthNanos >= thresholdNanos) {
+            if (startInfo == null) {
+                startInfo = enterMethod(method, parameterValues, skipped, depth);
+            }
+            exitMethod(method, result, lengthNanos, selfNanos, startInfo, depth);
+        }
 
         return result;
     }
 
-    private static String enterMethod(JoinPoint joinPoint) {
-        if (ua.at.tsvetkov.util.Log.isDisabled()) return null;
-
-        CodeSignature codeSignature = (CodeSignature) joinPoint.getSignature();
-
-        Class<?> cls = codeSignature.getDeclaringType();
-        String methodName = codeSignature.getName();
-        String[] parameterNames = codeSignature.getParameterNames();
-        Object[] parameterValues = joinPoint.getArgs();
-
-        StringBuilder builder = new StringBuilder("\u21E2 ");
+    /**
+     * Tracing is needed while the logs are enabled, or the statistics, the call tree or the trace events are collected
+     */
+    static void updateTracing() {
+        isTracing = !Log.isDisabled() || ToLogStats.isEnabled() || ToLogProfiler.isEnabled() || TraceEventExporter.isEnabled();
+    }
 
-        checkForClass(cls.getSimpleName(), methodName, builder);
+    private static String enterMethod(TracedMethod method, Object[] parameterValues, long skipped, int depth) {
+        StringBuilder builder = new StringBuilder();
+        Format.addIndent(builder, depth);
+        builder.append("\u21E2 ");
+        builder.append(method.name);
 
         builder.append(" (");
+        FormatLimits limits = method.getLimits();
         for (int i = 0; i < parameterValues.length; i++) {
             if (i > 0) {
                 builder.append(", ");
             }
-            builder.append(parameterNames[i]).append('=');
-            builder.append(ObjectFormatter.toString(parameterValues[i]));
+            builder.append(method.parameterNames[i]).append('=');
+            builder.append(ObjectFormatter.toString(parameterValues[i], limits));
         }
         builder.append(')');
 
-
-//       String startInfo = Format.getFormattedMessage(builder.toString());
-//        StringBuilder sb = new StringBuilder();
-//        Format.fillTag(cls.getName(), Thread.currentThread().getStackTrace(), sb);
-//        android.util.Log.v(sb.toString(), Format.getFormattedMessage(builder.toString()));
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            final String section = builder.toString().substring(2);
-            Trace.beginSection(section);
+        if (skipped > 0) {
+            builder.append(" [")
+                    .append(skipped)
+                    .append(" calls skipped]");
         }
         return builder.toString();
     }
 
-    private static void exitMethod(JoinPoint joinPoint, Object result, long lengthMillis, String startInfo) {
-        if (ua.at.tsvetkov.util.Log.isDisabled()) return;
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
-            Trace.endSection();
+    private static void exitMethod(TracedMethod method, Object result, long lengthNanos, long selfNanos, String startInfo, int depth) {
+        StringBuilder builder = new StringBuilder(startInfo);
+        builder.append(Format.NL);
+        Format.addIndent(builder, depth);
+        builder.append("\u21E0 ");
+        builder.append(method.name);
+
+        builder.append(" [");
+        Format.addMillis(builder, lengthNanos);
+        if (selfNanos != lengthNanos) {
+            builder.append(", self ");
+            Format.addMillis(builder, selfNanos);
         }
+        builder.append(']');
 
-        Signature signature = joinPoint.getSignature();
-
-        Class<?> cls = signature.getDeclaringType();
-        String methodName = signature.getName();
-        boolean hasReturnType = signature instanceof MethodSignature
-                && ((MethodSignature) signature).getReturnType() != void.class;
-
-        StringBuilder builder = new StringBuilder(startInfo + "\n\u21E0 ");
-
-        checkForClass(cls.getSimpleName(), methodName, builder);
-
-        builder.append(" [")
-                .append(lengthMillis)
-                .append("ms]");
-
-        if (hasReturnType) {
+        if (method.hasReturnType) {
             builder.append(" = ");
-            builder.append(ObjectFormatter.toString(result));
+            builder.append(ObjectFormatter.toString(result, method.getLimits()));
         }
 
-        StringBuilder sb = new StringBuilder();
-        Format.fillTag(cls.getName(), Thread.currentThread().getStackTrace(), sb);
+        LogConfig config = Log.config;
+        Log.print(android.util.Log.VERBOSE, method.getTag(config), Format.getFormattedMessage(config, builder.toString(), null));
+    }
 
-        android.util.Log.v(sb.toString(), Format.getFormattedMessage(builder.toString()));
+    private static void beginSection(String section) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(section);
+        }
     }
 
-    private static void checkForClass(String className, String methodName, StringBuilder builder) {
-        if (methodName.contains("<init>")) {
-            builder.append("<init ")
-                    .append(className)
-                    .append('>');
-        } else {
-            builder.append(methodName);
+    private static void endSection() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
         }
     }
 
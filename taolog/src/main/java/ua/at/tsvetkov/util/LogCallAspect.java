@@ -0,0 +1,40 @@
+package ua.at.tsvetkov.util;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+
+/**
+ * Rewrites the Log.v/d/i/w/e/wtf(message), (message, throwable) and (throwable) calls of the woven application code. The call site is
+ * known from the static metadata AspectJ creates once per call, so the woven calls never walk the stack for the tag. The other calls and
+ * the not woven code use the usual Log methods.
+ */
+@Aspect
+public class LogCallAspect {
+
+    @Pointcut("call(public static void ua.at.tsvetkov.util.Log.v(..)) || call(public static void ua.at.tsvetkov.util.Log.d(..))"
+            + " || call(public static void ua.at.tsvetkov.util.Log.i(..)) || call(public static void ua.at.tsvetkov.util.Log.w(..))"
+            + " || call(public static void ua.at.tsvetkov.util.Log.e(..)) || call(public static void ua.at.tsvetkov.util.Log.wtf(..))")
+    public void logCall() {}
+
+    @Pointcut("logCall() && !within(ua.at.tsvetkov.util..*)")
+    public void applicationLogCall() {}
+
+    @Around("applicationLogCall() && args(message)")
+    public void logMessage(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, String message) {
+        Log.printAt(CallSite.get(joinPoint.getStaticPart(), enclosing), message);
+    }
+
+    @Around("applicationLogCall() && args(message, tr)")
+    public void logMessageAndThrowable(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, String message, Throwable tr) {
+        Log.printAt(CallSite.get(joinPoint.getStaticPart(), enclosing), message, tr);
+    }
+
+    @Around("applicationLogCall() && args(tr)")
+    public void logThrowable(ProceedingJoinPoint joinPoint, JoinPoint.EnclosingStaticPart enclosing, Throwable tr) {
+        Log.printAt(CallSite.get(joinPoint.getStaticPart(), enclosing), null, tr);
+    }
+
+}
@@ -0,0 +1,230 @@
+package ua.at.tsvetkov.util;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Immutable snapshot of all logger settings. The logger reads it once per call through {@link Log#getConfig()}, so a call never sees a
+ * half updated configuration. Change it with {@link #toBuilder()} and {@link Log#setConfig(LogConfig)}, or with the Log setters which
+ * do the same.
+ */
+public final class LogConfig {
+
+    public static final LogConfig DEFAULT = new Builder().build();
+
+    final boolean isDisabled;
+    final boolean isLogOutlined;
+    final boolean isAlignNewLines;
+    final String stamp;
+    final String packageName;
+    final long toLogThresholdNanos;
+    final boolean isToLogSystraceOnly;
+    final FormatLimits toLogLimits;
+    final EventFormat eventFormat;
+    /**
+     * Longest tag so far, the aligned tags are padded to it. Grows with {@link #withMaxTagLength(int)}
+     */
+    final int maxTagLength;
+    /**
+     * The stamp with the following space, empty if there is no stamp
+     */
+    final String stampPrefix;
+    /**
+     * {@link #maxTagLength} spaces for padding the aligned tags
+     */
+    final String tagPadding;
+    private String alignment;
+
+    private LogConfig(Builder builder, int maxTagLength) {
+        isDisabled = builder.isDisabled;
+        isLogOutlined = builder.isLogOutlined;
+        isAlignNewLines = builder.isAlignNewLines;
+        stamp = builder.stamp;
+        packageName = builder.packageName;
+        toLogThresholdNanos = builder.toLogThresholdNanos;
+        isToLogSystraceOnly = builder.isToLogSystraceOnly;
+        toLogLimits = builder.toLogLimits;
+        eventFormat = builder.eventFormat;
+        this.maxTagLength = maxTagLength;
+        stampPrefix = stamp != null && stamp.length() > 0 ? stamp + Format.SPACE : "";
+        tagPadding = isAlignNewLines ? spaces(maxTagLength) : "";
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    public boolean isDisabled() {
+        return isDisabled;
+    }
+
+    public boolean isLogOutlined() {
+        return isLogOutlined;
+    }
+
+    public boolean isAlignNewLines() {
+        return isAlignNewLines;
+    }
+
+    public String getStamp() {
+        return stamp;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    public long getToLogThresholdMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(toLogThresholdNanos);
+    }
+
+    public boolean isToLogSystraceOnly() {
+        return isToLogSystraceOnly;
+    }
+
+    public EventFormat getEventFormat() {
+        return eventFormat;
+    }
+
+    LogConfig withMaxTagLength(int maxTagLength) {
+        return new LogConfig(new Builder(this), maxTagLength);
+    }
+
+    /**
+     * Spaces put before the new lines of an aligned message, the width of the logcat prefix and the tag.
+     */
+    String getAlignment() {
+        String spaces = alignment;
+        if (spaces == null) {
+            int prefixLength = packageName != null ? packageName.length() + Format.MAGIC_SPACES_COUNT : Format.getBeforeTagSpacesCount();
+            spaces = spaces(maxTagLength + prefixLength);
+            if (packageName != null || Format.isBeforeTagSpacesCountKnown()) {
+                alignment = spaces;
+            }
+        }
+        return spaces;
+    }
+
+    private static String spaces(int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, Format.SPACE);
+        return new String(chars);
+    }
+
+    public static final class Builder {
+
+        private boolean isDisabled = false;
+        private boolean isLogOutlined = true;
+        private boolean isAlignNewLines = false;
+        private String stamp = null;
+        private String packageName = null;
+        private long toLogThresholdNanos = 0;
+        private boolean isToLogSystraceOnly = false;
+        private FormatLimits toLogLimits = FormatLimits.NONE;
+        private EventFormat eventFormat = EventFormat.OUTLINED;
+        private final int maxTagLength;
+
+        private Builder() {
+            maxTagLength = Format.MAX_TAG_LENGTH;
+        }
+
+        private Builder(LogConfig config) {
+            isDisabled = config.isDisabled;
+            isLogOutlined = config.isLogOutlined;
+            isAlignNewLines = config.isAlignNewLines;
+            stamp = config.stamp;
+            packageName = config.packageName;
+            toLogThresholdNanos = config.toLogThresholdNanos;
+            isToLogSystraceOnly = config.isToLogSystraceOnly;
+            toLogLimits = config.toLogLimits;
+            eventFormat = config.eventFormat;
+            maxTagLength = config.maxTagLength;
+        }
+
+        /**
+         * @param isDisabled is logs disabled. False by default
+         */
+        public Builder setDisabled(boolean isDisabled) {
+            this.isDisabled = isDisabled;
+            return this;
+        }
+
+        /**
+         * @param isLogOutlined create the line boundaries of the log. True by default
+         */
+        public Builder setLogOutlined(boolean isLogOutlined) {
+            this.isLogOutlined = isLogOutlined;
+            return this;
+        }
+
+        /**
+         * @param isAlignNewLines print a log string in new lines with spaces (as in AndroidStudio before 3.1). False by default
+         */
+        public Builder setAlignNewLines(boolean isAlignNewLines) {
+            this.isAlignNewLines = isAlignNewLines;
+            return this;
+        }
+
+        /**
+         * @param stamp the stamp added to every tag, null for none
+         */
+        public Builder setStamp(String stamp) {
+            this.stamp = stamp;
+            return this;
+        }
+
+        /**
+         * @param packageName the application package name for the new line alignment, null to find it in the stack
+         */
+        public Builder setPackageName(String packageName) {
+            this.packageName = packageName;
+            return this;
+        }
+
+        /**
+         * @param thresholdMicros minimal duration of a logged @ToLog call. 0 by default
+         */
+        public Builder setToLogThresholdMicros(long thresholdMicros) {
+            toLogThresholdNanos = TimeUnit.MICROSECONDS.toNanos(thresholdMicros);
+            return this;
+        }
+
+        /**
+         * @param isSystraceOnly mark the @ToLog methods only as systrace sections. False by default
+         */
+        public Builder setToLogSystraceOnly(boolean isSystraceOnly) {
+            isToLogSystraceOnly = isSystraceOnly;
+            return this;
+        }
+
+        /**
+         * @param maxLength         max characters of one @ToLog argument or result, 0 is unlimited
+         * @param maxArrayElements  max printed elements of an array, 0 is unlimited
+         * @param maxCollectionSize max printed elements of a collection or entries of a map, 0 is unlimited
+         */
+        public Builder setToLogLimits(int maxLength, int maxArrayElements, int maxCollectionSize) {
+            toLogLimits = new FormatLimits(Math.max(maxLength, 0), Math.max(maxArrayElements, 0), Math.max(maxCollectionSize, 0));
+            return this;
+        }
+
+        /**
+         * @param eventFormat output layout of the structured events. OUTLINED by default
+         */
+        public Builder setEventFormat(@NonNull EventFormat eventFormat) {
+            this.eventFormat = eventFormat;
+            return this;
+        }
+
+        public LogConfig build() {
+            return new LogConfig(this, maxTagLength);
+        }
+
+    }
+
+}
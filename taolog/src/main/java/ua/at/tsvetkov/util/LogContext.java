@@ -0,0 +1,258 @@
+package ua.at.tsvetkov.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+/**
+ * Diagnostic context of the current thread, like a request id, a screen or a user session, added to every log message of the thread:
+ * <pre>
+ * LogContext.put("request", id);
+ * Log.i("Loaded");    // [request=42] Loaded
+ * </pre>
+ * The context is an immutable {@link Snapshot} replaced on every change, so capturing it for another thread is a reference copy, see
+ * {@link #wrap(Runnable)} and {@link #wrap(Executor)}. Until the first context is set the logger doesn't even look into the thread local.
+ */
+public final class LogContext {
+
+    private static final ThreadLocal<Snapshot> CURRENT = new ThreadLocal<>();
+    /**
+     * Set forever by the first non empty context
+     */
+    private static volatile boolean isUsed = false;
+
+    private LogContext() {
+
+    }
+
+    /**
+     * Add or replace a value of the current thread context.
+     *
+     * @param key   the key
+     * @param value the value, null removes the key
+     */
+    public static void put(@NonNull String key, @Nullable String value) {
+        if (value == null) {
+            remove(key);
+        } else {
+            attach(capture().with(key, value));
+        }
+    }
+
+    /**
+     * @param key the key
+     * @return the value of the current thread context or null
+     */
+    @Nullable
+    public static String get(@NonNull String key) {
+        return capture().get(key);
+    }
+
+    /**
+     * Remove a value from the current thread context.
+     *
+     * @param key the key
+     */
+    public static void remove(@NonNull String key) {
+        Snapshot current = CURRENT.get();
+        if (current != null) {
+            attach(current.without(key));
+        }
+    }
+
+    /**
+     * Remove all values of the current thread context.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    /**
+     * @return the context of the current thread, {@link Snapshot#EMPTY} if none
+     */
+    @NonNull
+    public static Snapshot capture() {
+        Snapshot current = CURRENT.get();
+        return current == null ? Snapshot.EMPTY : current;
+    }
+
+    /**
+     * Replace the context of the current thread, for example by one captured on another thread.
+     *
+     * @param snapshot the new context
+     * @return the previous context, to restore it later
+     */
+    @NonNull
+    public static Snapshot attach(@NonNull Snapshot snapshot) {
+        Snapshot previous = capture();
+        if (snapshot.size() == 0) {
+            CURRENT.remove();
+        } else {
+            isUsed = true;
+            CURRENT.set(snapshot);
+        }
+        return previous;
+    }
+
+    /**
+     * @param task a task
+     * @return the task running with the context of the current thread
+     */
+    @NonNull
+    public static Runnable wrap(@NonNull final Runnable task) {
+        final Snapshot snapshot = capture();
+        return new Runnable() {
+            @Override
+            public void run() {
+                Snapshot previous = attach(snapshot);
+                try {
+                    task.run();
+                } finally {
+                    attach(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param task a task
+     * @return the task running with the context of the current thread
+     */
+    @NonNull
+    public static <V> Callable<V> wrap(@NonNull final Callable<V> task) {
+        final Snapshot snapshot = capture();
+        return new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                Snapshot previous = attach(snapshot);
+                try {
+                    return task.call();
+                } finally {
+                    attach(previous);
+                }
+            }
+        };
+    }
+
+    /**
+     * @param executor an executor
+     * @return the executor running every task with the context of the thread which submitted it
+     */
+    @NonNull
+    public static Executor wrap(@NonNull final Executor executor) {
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                executor.execute(wrap(command));
+            }
+        };
+    }
+
+    /**
+     * @return the context of the current thread or null if it is empty
+     */
+    @Nullable
+    static Snapshot current() {
+        return isUsed ? CURRENT.get() : null;
+    }
+
+    /**
+     * Immutable context, the keys in the order they were added.
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new Snapshot(new String[0], new String[0]);
+
+        private final String[] keys;
+        private final String[] values;
+        /**
+         * The context added before the messages, like "[request=42 screen=Main] "
+         */
+        final String prefix;
+
+        private Snapshot(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
+            StringBuilder sb = new StringBuilder();
+            if (keys.length > 0) {
+                sb.append('[');
+                for (int i = 0; i < keys.length; i++) {
+                    if (i > 0) {
+                        sb.append(Format.SPACE);
+                    }
+                    sb.append(keys[i]).append('=').append(values[i]);
+                }
+                sb.append(']').append(Format.SPACE);
+            }
+            prefix = sb.toString();
+        }
+
+        public int size() {
+            return keys.length;
+        }
+
+        public String getKey(int index) {
+            return keys[index];
+        }
+
+        public String getValue(int index) {
+            return values[index];
+        }
+
+        @Nullable
+        public String get(@NonNull String key) {
+            int index = indexOf(key);
+            return index < 0 ? null : values[index];
+        }
+
+        @Override
+        public String toString() {
+            return prefix.trim();
+        }
+
+        Snapshot with(String key, String value) {
+            int index = indexOf(key);
+            if (index >= 0) {
+                if (values[index].equals(value)) {
+                    return this;
+                }
+                String[] newValues = values.clone();
+                newValues[index] = value;
+                return new Snapshot(keys, newValues);
+            }
+            String[] newKeys = Arrays.copyOf(keys, keys.length + 1);
+            String[] newValues = Arrays.copyOf(values, values.length + 1);
+            newKeys[keys.length] = key;
+            newValues[values.length] = value;
+            return new Snapshot(newKeys, newValues);
+        }
+
+        Snapshot without(String key) {
+            int index = indexOf(key);
+            if (index < 0) {
+                return this;
+            }
+            String[] newKeys = new String[keys.length - 1];
+            String[] newValues = new String[values.length - 1];
+            System.arraycopy(keys, 0, newKeys, 0, index);
+            System.arraycopy(values, 0, newValues, 0, index);
+            System.arraycopy(keys, index + 1, newKeys, index, keys.length - index - 1);
+            System.arraycopy(values, index + 1, newValues, index, values.length - index - 1);
+            return new Snapshot(newKeys, newValues);
+        }
+
+        private int indexOf(String key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+    }
+
+}
@@ -0,0 +1,377 @@
+package ua.at.tsvetkov.util;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Structured log message, started by {@link Log#atInfo()} and the like and finished by {@link #msg(String)} or {@link #log()}:
+ * <pre>
+ * Log.atInfo().kv("userId", id).kv("ms", dt).msg("login");
+ * </pre>
+ * The events are reused, one per thread. Don't keep a reference after the message is sent and always finish a started event.
+ * The primitive values are not boxed. A filtered out level gets a shared event which ignores everything.
+ * The layout is set by {@link LogConfig.Builder#setEventFormat(EventFormat)}. The {@link LogContext} keys follow the own ones.
+ */
+public class LogEvent {
+
+    static final LogEvent NOOP = new NoopEvent();
+
+    private static final int INITIAL_CAPACITY = 8;
+    /**
+     * A larger rendering buffer is not kept after the event
+     */
+    private static final int MAX_BUFFER_CAPACITY = 4096;
+    private static final byte OBJECT = 0;
+    private static final byte LONG = 1;
+    private static final byte DOUBLE = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte CHAR = 4;
+    private static final ThreadLocal<LogEvent> POOL = new ThreadLocal<LogEvent>() {
+        @Override
+        protected LogEvent initialValue() {
+            return new LogEvent();
+        }
+    };
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    /**
+     * long, char, boolean (0 or 1) and double (raw bits) values
+     */
+    private long[] primitives = new long[INITIAL_CAPACITY];
+    private Object[] objects = new Object[INITIAL_CAPACITY];
+    private int size;
+    private final StringBuilder sb = new StringBuilder();
+    private boolean isInUse;
+    private int priority;
+    private Logger logger;
+    private Throwable throwable;
+
+    LogEvent() {
+
+    }
+
+    /**
+     * The event of the current thread, a new one if it is still in use (an event logged while formatting another).
+     */
+    static LogEvent obtain(@Nullable Logger logger, int priority) {
+        LogEvent event = POOL.get();
+        if (event.isInUse) {
+            event = new LogEvent();
+        }
+        event.isInUse = true;
+        event.logger = logger;
+        event.priority = priority;
+        return event;
+    }
+
+    public LogEvent kv(@NonNull String key, @Nullable Object value) {
+        objects[add(key, OBJECT)] = value;
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, long value) {
+        primitives[add(key, LONG)] = value;
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, double value) {
+        primitives[add(key, DOUBLE)] = Double.doubleToRawLongBits(value);
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, boolean value) {
+        primitives[add(key, BOOLEAN)] = value ? 1 : 0;
+        return this;
+    }
+
+    public LogEvent kv(@NonNull String key, char value) {
+        primitives[add(key, CHAR)] = value;
+        return this;
+    }
+
+    /**
+     * @param tr the throwable logged with the event
+     */
+    public LogEvent throwable(@Nullable Throwable tr) {
+        throwable = tr;
+        return this;
+    }
+
+    /**
+     * Send the event with a message. The event must not be used after it.
+     *
+     * @param message The message you would like logged.
+     */
+    public void msg(@Nullable String message) {
+        try {
+            print(message);
+        } finally {
+            release();
+        }
+    }
+
+    /**
+     * Send the event without a message. The event must not be used after it.
+     */
+    public void log() {
+        msg(null);
+    }
+
+    /**
+     * @return index of the value
+     */
+    private int add(String key, byte type) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            types = Arrays.copyOf(types, capacity);
+            primitives = Arrays.copyOf(primitives, capacity);
+            objects = Arrays.copyOf(objects, capacity);
+        }
+        keys[size] = key;
+        types[size] = type;
+        return size++;
+    }
+
+    private void print(String message) {
+        LogConfig config = Log.config;
+        if (config.isDisabled) {
+            return;
+        }
+        String tag = logger == null ? Format.getTag(config) : logger.getTag(config);
+        // The repeats of an event are the events of the same call site with the same message, the values are not rendered for them
+        if (!Log.isAccepted(priority, tag, message, null)) {
+            return;
+        }
+        LogContext.Snapshot context = LogContext.current();
+        if (context != null) {
+            for (int i = 0; i < context.size(); i++) {
+                kv(context.getKey(i), context.getValue(i));
+            }
+        }
+        String body = render(config.eventFormat, message);
+        if (config.eventFormat == EventFormat.OUTLINED) {
+            Log.write(priority, tag, Format.getFormattedMessage(config, body, message == null ? "Event" : message));
+        } else {
+            Log.write(priority, tag, body);
+        }
+    }
+
+    private String render(EventFormat format, String message) {
+        sb.setLength(0);
+        switch (format) {
+            case KEY_VALUE:
+                renderKeyValue(message);
+                break;
+            case JSON:
+                renderJson(message);
+                break;
+            default:
+                renderOutlined();
+                break;
+        }
+        String result = sb.toString();
+        if (sb.capacity() > MAX_BUFFER_CAPACITY) {
+            sb.setLength(0);
+            sb.trimToSize();
+        }
+        return result;
+    }
+
+    private void renderOutlined() {
+        int max = 0;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, keys[i].length());
+        }
+        for (int i = 0; i < size; i++) {
+            sb.append(keys[i]);
+            for (int j = keys[i].length(); j < max; j++) {
+                sb.append(Format.SPACE);
+            }
+            sb.append(" = ");
+            appendValue(i, false);
+            sb.append(Format.NL);
+        }
+        if (throwable != null) {
+            Format.addStackTrace(sb, throwable);
+        }
+    }
+
+    private void renderKeyValue(String message) {
+        if (message != null) {
+            sb.append(message);
+        }
+        for (int i = 0; i < size; i++) {
+            if (sb.length() > 0) {
+                sb.append(Format.SPACE);
+            }
+            sb.append(keys[i]).append('=');
+            appendValue(i, false);
+        }
+        if (throwable != null) {
+            if (sb.length() > 0) {
+                sb.append(Format.SPACE);
+            }
+            sb.append("error=").append(throwable);
+        }
+    }
+
+    private void renderJson(String message) {
+        sb.append('{');
+        if (message != null) {
+            appendJsonString("msg");
+            sb.append(':');
+            appendJsonString(message);
+        }
+        for (int i = 0; i < size; i++) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendJsonString(keys[i]);
+            sb.append(':');
+            appendValue(i, true);
+        }
+        if (throwable != null) {
+            if (sb.length() > 1) {
+                sb.append(',');
+            }
+            appendJsonString("error");
+            sb.append(':');
+            appendJsonString(throwable.toString());
+        }
+        sb.append('}');
+    }
+
+    private void appendValue(int index, boolean isJson) {
+        long value = primitives[index];
+        switch (types[index]) {
+            case LONG:
+                sb.append(value);
+                break;
+            case DOUBLE:
+                double d = Double.longBitsToDouble(value);
+                if (isJson && (Double.isNaN(d) || Double.isInfinite(d))) {
+                    sb.append("null");
+                } else {
+                    sb.append(d);
+                }
+                break;
+            case BOOLEAN:
+                sb.append(value != 0);
+                break;
+            case CHAR:
+                if (isJson) {
+                    appendJsonString(String.valueOf((char) value));
+                } else {
+                    sb.append((char) value);
+                }
+                break;
+            default:
+                Object object = objects[index];
+                if (!isJson) {
+                    sb.append(object);
+                } else if (object == null) {
+                    sb.append("null");
+                } else if (object instanceof Number || object instanceof Boolean) {
+                    sb.append(object);
+                } else {
+                    appendJsonString(object.toString());
+                }
+                break;
+        }
+    }
+
+    private void appendJsonString(String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    private void release() {
+        for (int i = 0; i < size; i++) {
+            keys[i] = null;
+            objects[i] = null;
+        }
+        size = 0;
+        logger = null;
+        throwable = null;
+        isInUse = false;
+    }
+
+    /**
+     * The shared event of the filtered out levels, ignores everything.
+     */
+    private static final class NoopEvent extends LogEvent {
+
+        @Override
+        public LogEvent kv(@NonNull String key, @Nullable Object value) {
+            return this;
+        }
+
+        @Override
+        public LogEvent kv(@NonNull String key, long value) {
+            return this;
+        }
+
+        @Override
+        public LogEvent kv(@NonNull String key, double value) {
+            return this;
+        }
+
+        @Override
+        public LogEvent kv(@NonNull String key, boolean value) {
+            return this;
+        }
+
+        @Override
+        public LogEvent kv(@NonNull String key, char value) {
+            return this;
+        }
+
+        @Override
+        public LogEvent throwable(@Nullable Throwable tr) {
+            return this;
+        }
+
+        @Override
+        public void msg(@Nullable String message) {
+
+        }
+
+        @Override
+        public void log() {
+
+        }
+
+    }
+
+}
@@ -0,0 +1,48 @@
+package ua.at.tsvetkov.util;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The single daemon thread on which the logger runs its periodic background jobs. Created on first use.
+ */
+final class LogScheduler {
+
+    private static final String THREAD_NAME = "TaoLog";
+
+    private LogScheduler() {
+
+    }
+
+    static ScheduledFuture<?> schedule(Runnable job, long period, TimeUnit unit) {
+        return Holder.EXECUTOR.scheduleWithFixedDelay(job, period, period, unit);
+    }
+
+    static void execute(Runnable job) {
+        Holder.EXECUTOR.execute(job);
+    }
+
+    private static final class Holder {
+
+        static final ScheduledExecutorService EXECUTOR = create();
+
+        private static ScheduledExecutorService create() {
+            ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, THREAD_NAME);
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+            executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            return executor;
+        }
+
+    }
+
+}
@@ -0,0 +1,39 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Destination of the formatted log messages, logcat by default. Set by {@link Log#setWriter(LogWriter)}.
+ */
+public interface LogWriter {
+
+    /**
+     * Writes to logcat, ASSERT goes to {@link android.util.Log#wtf(String, String)}.
+     */
+    LogWriter ANDROID = new LogWriter() {
+        @Override
+        public void write(int priority, String tag, String message) {
+            if (priority == android.util.Log.ASSERT) {
+                android.util.Log.wtf(tag, message);
+            } else {
+                android.util.Log.println(priority, tag, message);
+            }
+        }
+
+        @Override
+        public void flush() {
+
+        }
+    };
+
+    /**
+     * @param priority the level like android.util.Log.DEBUG
+     * @param tag      the formatted tag
+     * @param message  the formatted message
+     */
+    void write(int priority, String tag, String message);
+
+    /**
+     * Write the buffered messages, if any.
+     */
+    void flush();
+
+}
@@ -0,0 +1,135 @@
+package ua.at.tsvetkov.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the "adb shell setprop log.tag.X LEVEL" settings to the logger. The generated tags can't be used as property names, so the
+ * levels are read for one application tag and, if enabled, for the source file names ("log.tag.MainActivity"). A file tag can only
+ * enable VERBOSE and DEBUG messages, because an unset property means INFO and can't be told apart from an explicit INFO.
+ * <p>
+ * Every tag is resolved once into a bit mask of the loggable levels, the masks are kept until {@link #refresh()}.
+ */
+final class LoggableFilter {
+
+    private static final int UNRESOLVED = -1;
+
+    private static volatile LoggableSource source = LoggableSource.ANDROID;
+    private static volatile Table table = null;
+    private static ScheduledFuture<?> refresher = null;
+
+    private LoggableFilter() {
+
+    }
+
+    static synchronized void setTag(String tag, boolean isPerFile) {
+        table = tag == null ? null : new Table(tag, isPerFile);
+    }
+
+    /**
+     * Replace the property source, for the JVM tests.
+     */
+    static synchronized void setSource(LoggableSource source) {
+        LoggableFilter.source = source;
+        refresh();
+    }
+
+    static synchronized void refresh() {
+        Table current = table;
+        if (current != null) {
+            table = new Table(current.tag, current.isPerFile);
+        }
+    }
+
+    static synchronized void setRefreshPeriod(long period, TimeUnit unit) {
+        if (refresher != null) {
+            refresher.cancel(false);
+            refresher = null;
+        }
+        if (period > 0) {
+            refresher = LogScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    refresh();
+                }
+            }, period, unit);
+        }
+    }
+
+    /**
+     * Pre-filter, checked before the tag is created.
+     *
+     * @param priority the log level
+     * @return false if the message must be dropped
+     */
+    static boolean isLoggable(int priority) {
+        Table current = table;
+        return current == null || current.isGlobalLoggable(priority) || (current.isPerFile && priority < android.util.Log.INFO);
+    }
+
+    /**
+     * File level check for the messages which passed the pre-filter only because of a possible file setting.
+     *
+     * @param priority the log level
+     * @param tag      the generated tag, contains the call site like "(Boo.java:14) isNeed"
+     * @return false if the message must be dropped
+     */
+    static boolean isLoggable(int priority, String tag) {
+        Table current = table;
+        if (current == null || !current.isPerFile || priority >= android.util.Log.INFO || current.isGlobalLoggable(priority)) {
+            return true;
+        }
+        return current.isFileLoggable(priority, tag);
+    }
+
+    private static int resolve(String tag) {
+        LoggableSource source = LoggableFilter.source;
+        int mask = 0;
+        for (int level = android.util.Log.VERBOSE; level <= android.util.Log.ASSERT; level++) {
+            if (source.isLoggable(tag, level)) {
+                mask |= 1 << level;
+            }
+        }
+        return mask;
+    }
+
+    private static final class Table {
+
+        final String tag;
+        final boolean isPerFile;
+        final ConcurrentHashMap<String, Integer> fileMasks = new ConcurrentHashMap<>();
+        volatile int globalMask = UNRESOLVED;
+
+        Table(String tag, boolean isPerFile) {
+            this.tag = tag;
+            this.isPerFile = isPerFile;
+        }
+
+        boolean isGlobalLoggable(int priority) {
+            int mask = globalMask;
+            if (mask == UNRESOLVED) {
+                mask = resolve(tag);
+                globalMask = mask;
+            }
+            return (mask & (1 << priority)) != 0;
+        }
+
+        boolean isFileLoggable(int priority, String logTag) {
+            int start = logTag.lastIndexOf('(') + 1;
+            int end = logTag.indexOf('.', start);
+            if (end < 0) {
+                return true;
+            }
+            String fileTag = logTag.substring(start, end);
+            Integer mask = fileMasks.get(fileTag);
+            if (mask == null) {
+                mask = resolve(fileTag);
+                fileMasks.put(fileTag, mask);
+            }
+            return (mask & (1 << priority)) != 0;
+        }
+
+    }
+
+}
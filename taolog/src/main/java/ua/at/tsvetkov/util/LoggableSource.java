@@ -0,0 +1,23 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Source of the "log.tag.*" level settings, {@link android.util.Log#isLoggable(String, int)} on a device.
+ */
+interface LoggableSource {
+
+    int MAX_TAG_LENGTH = 23;
+
+    LoggableSource ANDROID = new LoggableSource() {
+        @Override
+        public boolean isLoggable(String tag, int level) {
+            try {
+                return android.util.Log.isLoggable(tag.length() > MAX_TAG_LENGTH ? tag.substring(0, MAX_TAG_LENGTH) : tag, level);
+            } catch (RuntimeException e) {
+                return true;
+            }
+        }
+    };
+
+    boolean isLoggable(String tag, int level);
+
+}
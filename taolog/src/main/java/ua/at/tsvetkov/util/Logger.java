@@ -0,0 +1,704 @@
+package ua.at.tsvetkov.util;
+
+import android.support.annotation.Nullable;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Logger with a fixed tag, created by {@link Log#forClass(Class)} or {@link Log#forTag(String)}. The tag with the stamp is built once
+ * per settings change instead of walking the stack on every call, the level is checked by one field read. Keep it in a static field of
+ * a hot class:
+ * <pre>
+ * private static final Logger log = Log.forClass(Boo.class);
+ * </pre>
+ * The global settings of {@link Log} (disabled, stamp, filters and limits) apply as well.
+ */
+public final class Logger {
+
+    /**
+     * Class of the logger or null for a logger with a custom tag
+     */
+    private final String className;
+    /**
+     * The fixed location of the tag, simple class name or the custom tag
+     */
+    private final String location;
+    private final boolean isLineNumbered;
+    private final TagCache tagCache = new TagCache();
+    private volatile int level = android.util.Log.VERBOSE;
+
+    Logger(@Nullable String className, String location, boolean isLineNumbered) {
+        this.className = className;
+        this.location = location;
+        this.isLineNumbered = isLineNumbered && className != null;
+    }
+
+    /**
+     * The lowest logged level. VERBOSE by default
+     *
+     * @return the level like android.util.Log.DEBUG
+     */
+    public int getLevel() {
+        return level;
+    }
+
+    /**
+     * Set the lowest logged level, the lower levels are dropped before anything is computed.
+     *
+     * @param level the level like android.util.Log.DEBUG
+     */
+    public void setLevel(int level) {
+        this.level = level;
+    }
+
+    /**
+     * Is messages of the level logged. Check it before building an expensive message.
+     *
+     * @param priority the level like android.util.Log.DEBUG
+     * @return is logged
+     */
+    public boolean isLoggable(int priority) {
+        return priority >= level && !Log.config.isDisabled;
+    }
+
+    /**
+     * Send a VERBOSE log message.
+     *
+     * @param message The message you would like logged.
+     */
+    public void v(String message) {
+        if (level <= android.util.Log.VERBOSE) {
+            printMessage(android.util.Log.VERBOSE, message, null);
+        }
+    }
+
+    /**
+     * Send a DEBUG log message.
+     *
+     * @param message The message you would like logged.
+     */
+    public void d(String message) {
+        if (level <= android.util.Log.DEBUG) {
+            printMessage(android.util.Log.DEBUG, message, null);
+        }
+    }
+
+    /**
+     * Send a INFO log message.
+     *
+     * @param message The message you would like logged.
+     */
+    public void i(String message) {
+        if (level <= android.util.Log.INFO) {
+            printMessage(android.util.Log.INFO, message, null);
+        }
+    }
+
+    /**
+     * Send a WARN log message.
+     *
+     * @param message The message you would like logged.
+     */
+    public void w(String message) {
+        if (level <= android.util.Log.WARN) {
+            printMessage(android.util.Log.WARN, message, null);
+        }
+    }
+
+    /**
+     * Send a ERROR log message.
+     *
+     * @param message The message you would like logged.
+     */
+    public void e(String message) {
+        if (level <= android.util.Log.ERROR) {
+            printMessage(android.util.Log.ERROR, message, null);
+        }
+    }
+
+    /**
+     * What a Terrible Failure: Report a condition that should never happen.
+     *
+     * @param message The message you would like logged.
+     */
+    public void wtf(String message) {
+        if (level <= android.util.Log.ASSERT) {
+            printMessage(android.util.Log.ASSERT, message, null);
+        }
+    }
+
+    // =========================== Structured events ===============================
+
+    /**
+     * Start a structured VERBOSE message, see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public LogEvent atVerbose() {
+        return at(android.util.Log.VERBOSE);
+    }
+
+    /**
+     * Start a structured DEBUG message, see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public LogEvent atDebug() {
+        return at(android.util.Log.DEBUG);
+    }
+
+    /**
+     * Start a structured INFO message, see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public LogEvent atInfo() {
+        return at(android.util.Log.INFO);
+    }
+
+    /**
+     * Start a structured WARN message, see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public LogEvent atWarn() {
+        return at(android.util.Log.WARN);
+    }
+
+    /**
+     * Start a structured ERROR message, see {@link LogEvent}.
+     *
+     * @return the event, or a shared no-op event if the level is not logged
+     */
+    public LogEvent atError() {
+        return at(android.util.Log.ERROR);
+    }
+
+    // ==========================================================
+
+    /**
+     * Send a VERBOSE log message and log the throwable.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void v(String message, Throwable tr) {
+        if (level <= android.util.Log.VERBOSE) {
+            printThrowable(android.util.Log.VERBOSE, message, tr);
+        }
+    }
+
+    /**
+     * Send a DEBUG log message and log the throwable.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void d(String message, Throwable tr) {
+        if (level <= android.util.Log.DEBUG) {
+            printThrowable(android.util.Log.DEBUG, message, tr);
+        }
+    }
+
+    /**
+     * Send a INFO log message and log the throwable.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void i(String message, Throwable tr) {
+        if (level <= android.util.Log.INFO) {
+            printThrowable(android.util.Log.INFO, message, tr);
+        }
+    }
+
+    /**
+     * Send a WARN log message and log the throwable.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void w(String message, Throwable tr) {
+        if (level <= android.util.Log.WARN) {
+            printThrowable(android.util.Log.WARN, message, tr);
+        }
+    }
+
+    /**
+     * Send a ERROR log message and log the throwable.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void e(String message, Throwable tr) {
+        if (level <= android.util.Log.ERROR) {
+            printThrowable(android.util.Log.ERROR, message, tr);
+        }
+    }
+
+    /**
+     * Send a ERROR log message and log the throwable. RuntimeException is not handled.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void rt(String message, Throwable tr) {
+        if (tr instanceof RuntimeException) {
+            throw (RuntimeException) tr;
+        }
+        e(message, tr);
+    }
+
+    /**
+     * What a Terrible Failure: Report an throwable that should never happen.
+     *
+     * @param message The message you would like logged.
+     * @param tr      An throwable to log
+     */
+    public void wtf(String message, Throwable tr) {
+        if (level <= android.util.Log.ASSERT) {
+            printThrowable(android.util.Log.ASSERT, message, tr);
+        }
+    }
+
+    // ==========================================================
+
+    /**
+     * Send a VERBOSE log the throwable.
+     *
+     * @param tr An throwable to log
+     */
+    public void v(Throwable tr) {
+        v(null, tr);
+    }
+
+    /**
+     * Send a DEBUG log the throwable.
+     *
+     * @param tr An throwable to log
+     */
+    public void d(Throwable tr) {
+        d(null, tr);
+    }
+
+    /**
+     * Send a INFO log the throwable.
+     *
+     * @param tr An throwable to log
+     */
+    public void i(Throwable tr) {
+        i(null, tr);
+    }
+
+    /**
+     * Send a WARN log the throwable.
+     *
+     * @param tr An throwable to log
+     */
+    public void w(Throwable tr) {
+        w(null, tr);
+    }
+
+    /**
+     * Send a ERROR log the throwable.
+     *
+     * @param tr An throwable to log
+     */
+    public void e(Throwable tr) {
+        e(null, tr);
+    }
+
+    /**
+     * Send a ERROR log the throwable. RuntimeException is not handled.
+     *
+     * @param tr An throwable to log
+     */
+    public void rt(Throwable tr) {
+        rt(null, tr);
+    }
+
+    /**
+     * What a Terrible Failure: Report an throwable that should never happen.
+     *
+     * @param tr An throwable to log
+     */
+    public void wtf(Throwable tr) {
+        wtf(null, tr);
+    }
+
+    // =========================== Collections, arrays and objects ===============================
+
+    /**
+     * Logged readable representation of map.
+     *
+     * @param map a map
+     */
+    public void map(Map<?, ?> map) {
+        map(map, "Map");
+    }
+
+    /**
+     * Logged readable representation of map.
+     *
+     * @param map   a map
+     * @param title a title string
+     */
+    public void map(Map<?, ?> map, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.map(map), title);
+        }
+    }
+
+    /**
+     * Logged readable representation of list.
+     *
+     * @param list a list
+     */
+    public void list(List<?> list) {
+        list(list, "List");
+    }
+
+    /**
+     * Logged readable representation of list.
+     *
+     * @param list  a list
+     * @param title a title string
+     */
+    public void list(List<?> list, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.list(list), title);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public <T> void array(T[] array) {
+        array(array, Format.ARRAY);
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     * @param title a title string
+     */
+    public <T> void array(T[] array, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), title);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(int[] array) {
+        array(array, Format.ARRAY);
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     * @param title a title string
+     */
+    public void array(int[] array, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), title);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(float[] array) {
+        array(array, Format.ARRAY);
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     * @param title a title string
+     */
+    public void array(float[] array, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), title);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(boolean[] array) {
+        array(array, Format.ARRAY);
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     * @param title a title string
+     */
+    public void array(boolean[] array, String title) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), title);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(char[] array) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), Format.ARRAY);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(double[] array) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), Format.ARRAY);
+        }
+    }
+
+    /**
+     * Logged String representation of array.
+     *
+     * @param array an array
+     */
+    public void array(long[] array) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.array(array), Format.ARRAY);
+        }
+    }
+
+    /**
+     * Logged String representation of class.
+     *
+     * @param obj a class for representation
+     */
+    public void objl(Object obj) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.objl(obj), obj.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Logged String representation of Object. Each field in new line.
+     *
+     * @param obj a class for representation
+     */
+    public void objn(Object obj) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.objn(obj), obj.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Logged readable representation of bytes array data like 0F CD AD.... Each countPerLine bytes will print in new line
+     *
+     * @param data         your bytes array data
+     * @param countPerLine count byte per line
+     */
+    public void hex(byte[] data, int countPerLine) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.hex(data, countPerLine), null);
+        }
+    }
+
+    /**
+     * Logged readable representation of bytes array data like 0F CD AD....
+     *
+     * @param data your bytes array data
+     */
+    public void hex(byte[] data) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.hex(data), null);
+        }
+    }
+
+    /**
+     * Logged readable representation of xml with indentation 2
+     *
+     * @param xmlStr your xml data
+     */
+    public void xml(String xmlStr) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.xml(xmlStr), null);
+        }
+    }
+
+    /**
+     * Logged readable representation of xml
+     *
+     * @param xmlStr      your xml data
+     * @param indentation xml identetion
+     */
+    public void xml(String xmlStr, int indentation) {
+        if (isLoggable(android.util.Log.INFO)) {
+            printMessage(android.util.Log.INFO, Format.xml(xmlStr, indentation), null);
+        }
+    }
+
+    // =========================== Thread and stack trace ===============================
+
+    /**
+     * Logged the current Thread info
+     */
+    public void threadInfo() {
+        threadInfo(Thread.currentThread(), null, null);
+    }
+
+    /**
+     * Logged the current Thread info and an throwable
+     *
+     * @param throwable An throwable to log
+     */
+    public void threadInfo(Throwable throwable) {
+        threadInfo(Thread.currentThread(), null, throwable);
+    }
+
+    /**
+     * Logged the current Thread info and a message
+     *
+     * @param message The message you would like logged.
+     */
+    public void threadInfo(@Nullable String message) {
+        threadInfo(Thread.currentThread(), message, null);
+    }
+
+    /**
+     * Logged the current Thread info and a message and an throwable
+     *
+     * @param message   The message you would like logged.
+     * @param throwable An throwable to log
+     */
+    public void threadInfo(String message, Throwable throwable) {
+        threadInfo(Thread.currentThread(), message, throwable);
+    }
+
+    /**
+     * Logged the Thread info and an throwable
+     *
+     * @param thread    for Logged info.
+     * @param throwable An throwable to log
+     */
+    public void threadInfo(Thread thread, Throwable throwable) {
+        threadInfo(thread, null, throwable);
+    }
+
+    /**
+     * Logged current stack trace.
+     */
+    public void stackTrace() {
+        stackTrace("Current stack trace:");
+    }
+
+    /**
+     * Logged current stack trace with a message.
+     *
+     * @param message a custom message
+     */
+    public void stackTrace(String message) {
+        if (isLoggable(android.util.Log.VERBOSE)) {
+            StringBuilder sb = new StringBuilder();
+            Format.addMessage(sb, message);
+            Format.addStackTrace(sb, Thread.currentThread());
+            printMessage(android.util.Log.VERBOSE, sb.toString(), null);
+        }
+    }
+
+    private void threadInfo(Thread thread, String message, Throwable throwable) {
+        if (isLoggable(android.util.Log.VERBOSE)) {
+            StringBuilder sb = new StringBuilder();
+            Format.addThreadInfo(sb, thread);
+            sb.append(Format.NL);
+            if (message != null) {
+                Format.addMessage(sb, message);
+            }
+            if (throwable != null) {
+                Format.addStackTrace(sb, throwable);
+            }
+            printMessage(android.util.Log.VERBOSE, sb.toString(), null);
+        }
+    }
+
+    // =========================== Output ===============================
+
+    private LogEvent at(int priority) {
+        if (priority < level || Log.config.isDisabled || !Log.isAccepted(priority)) {
+            return LogEvent.NOOP;
+        }
+        return LogEvent.obtain(this, priority);
+    }
+
+    private void printMessage(int priority, String message, String title) {
+        LogConfig config = Log.config;
+        if (config.isDisabled || !Log.isAccepted(priority)) {
+            return;
+        }
+        String tag = getTag(config);
+        if (Log.isAccepted(priority, tag, message, title)) {
+            Log.print(priority, tag, Format.getFormattedMessage(config, message, title));
+        }
+    }
+
+    private void printThrowable(int priority, String message, Throwable tr) {
+        LogConfig config = Log.config;
+        if (config.isDisabled || !Log.isAccepted(priority)) {
+            return;
+        }
+        String tag = getTag(config);
+        if (Log.isAccepted(priority, tag, message, RepeatFilter.isEnabled() ? String.valueOf(tr) : null)) {
+            Log.print(priority, tag, Format.getFormattedThrowable(config, message, tr));
+        }
+    }
+
+    String getTag(LogConfig config) {
+        if (isLineNumbered) {
+            String caller = getCallerLocation();
+            if (caller != null) {
+                return Format.getTag(config, caller);
+            }
+        }
+        return tagCache.get(config, location);
+    }
+
+    /**
+     * The first frame of the logger class or its inner classes, without the class loading and the frame skipping of
+     * {@link Format#addLocation}.
+     *
+     * @return location like "(Boo.java:14) isNeed" or null if the logger is called from another class
+     */
+    private String getCallerLocation() {
+        StackTraceElement[] traces = new Throwable().getStackTrace();
+        int length = className.length();
+        for (StackTraceElement trace : traces) {
+            String name = trace.getClassName();
+            if (name.startsWith(className) && (name.length() == length || name.charAt(length) == '$')) {
+                StringBuilder sb = new StringBuilder();
+                Format.addClassLink(sb, trace.getFileName(), trace.getLineNumber());
+                sb.append(trace.getMethodName());
+                return sb.toString();
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,100 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Immutable snapshot of the call timings of one {@link ua.at.tsvetkov.annotations.ToLog} method or of one lifecycle transition. All times
+ * are in nanoseconds.
+ *
+ * @see ToLogStats#snapshot()
+ * @see LifecycleStats#snapshot()
+ */
+public final class MethodStats {
+
+    private final String name;
+    private final long count;
+    private final long errors;
+    private final long totalNanos;
+    private final long minNanos;
+    private final long maxNanos;
+    private final long[] buckets;
+
+    MethodStats(String name, long count, long errors, long totalNanos, long minNanos, long maxNanos, long[] buckets) {
+        this.name = name;
+        this.count = count;
+        this.errors = errors;
+        this.totalNanos = totalNanos;
+        this.minNanos = minNanos;
+        this.maxNanos = maxNanos;
+        this.buckets = buckets;
+    }
+
+    /**
+     * @return class and method name, like "Boo.isNeed", or the lifecycle transition, like "MainActivity onCreate→onResume"
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return number of calls, including the failed ones
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of calls finished with an exception
+     */
+    public long getErrors() {
+        return errors;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMinNanos() {
+        return minNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public long getMeanNanos() {
+        return count == 0 ? 0 : totalNanos / count;
+    }
+
+    /**
+     * Latency percentile, accurate within 12.5%.
+     *
+     * @param percentile from 0 to 100, like 99.9
+     * @return duration in nanoseconds
+     */
+    public long getPercentileNanos(double percentile) {
+        return Math.min(LatencyHistogram.valueAtPercentile(buckets, count, percentile), maxNanos);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(name);
+        sb.append(" calls=").append(count);
+        sb.append(" errors=").append(errors);
+        sb.append(" total=");
+        Format.addMillis(sb, totalNanos);
+        sb.append(" min=");
+        Format.addMillis(sb, minNanos);
+        sb.append(" mean=");
+        Format.addMillis(sb, getMeanNanos());
+        sb.append(" p50=");
+        Format.addMillis(sb, getPercentileNanos(50));
+        sb.append(" p90=");
+        Format.addMillis(sb, getPercentileNanos(90));
+        sb.append(" p99=");
+        Format.addMillis(sb, getPercentileNanos(99));
+        sb.append(" max=");
+        Format.addMillis(sb, maxNanos);
+        return sb.toString();
+    }
+
+}
@@ -0,0 +1,96 @@
+package ua.at.tsvetkov.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Accumulates call timings of one traced method. The counters are split into stripes selected by the calling thread, so concurrent
+ * callers of the same method rarely update the same memory.
+ */
+final class MethodTimer {
+
+    private static final int STRIPE_COUNT = stripeCount();
+
+    private final String name;
+    private final Stripe[] stripes;
+
+    MethodTimer(String name) {
+        this(name, STRIPE_COUNT);
+    }
+
+    /**
+     * @param stripeCount power of two, 1 for the timings recorded by one thread
+     */
+    MethodTimer(String name, int stripeCount) {
+        this.name = name;
+        stripes = new Stripe[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    void record(long nanos, boolean isError) {
+        Stripe stripe = stripes[(int) (Thread.currentThread().getId() & (stripes.length - 1))];
+        stripe.count.incrementAndGet();
+        if (isError) {
+            stripe.errors.incrementAndGet();
+        }
+        stripe.total.addAndGet(nanos);
+        long min = stripe.min.get();
+        while (nanos < min && !stripe.min.compareAndSet(min, nanos)) {
+            min = stripe.min.get();
+        }
+        long max = stripe.max.get();
+        while (nanos > max && !stripe.max.compareAndSet(max, nanos)) {
+            max = stripe.max.get();
+        }
+        stripe.histogram.record(nanos);
+    }
+
+    MethodStats snapshot() {
+        long count = 0;
+        long errors = 0;
+        long total = 0;
+        long min = Long.MAX_VALUE;
+        long max = 0;
+        long[] buckets = new long[LatencyHistogram.BUCKET_COUNT];
+        for (Stripe stripe : stripes) {
+            count += stripe.count.get();
+            errors += stripe.errors.get();
+            total += stripe.total.get();
+            min = Math.min(min, stripe.min.get());
+            max = Math.max(max, stripe.max.get());
+            stripe.histogram.addTo(buckets);
+        }
+        return new MethodStats(name, count, errors, total, count == 0 ? 0 : min, max, buckets);
+    }
+
+    void reset() {
+        for (Stripe stripe : stripes) {
+            stripe.count.set(0);
+            stripe.errors.set(0);
+            stripe.total.set(0);
+            stripe.min.set(Long.MAX_VALUE);
+            stripe.max.set(0);
+            stripe.histogram.reset();
+        }
+    }
+
+    private static int stripeCount() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        int count = 1;
+        while (count < processors && count < 8) {
+            count <<= 1;
+        }
+        return count;
+    }
+
+    private static final class Stripe {
+        final AtomicLong count = new AtomicLong();
+        final AtomicLong errors = new AtomicLong();
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong max = new AtomicLong();
+        final LatencyHistogram histogram = new LatencyHistogram();
+    }
+
+}
@@ -1,12 +1,44 @@
 package ua.at.tsvetkov.util;
 
+import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Set;
 
 final class ObjectFormatter {
 
+    private static final char ELLIPSIS = '\u2026';
+    private static final String MORE = " more";
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    /**
+     * Format an object within the limits. The formatting stops as soon as a limit is reached, so the cost depends on the limits and
+     * not on the size of the object. Only a plain toString() of an unknown class can't be stopped early, its result is cut.
+     *
+     * @param obj    the object
+     * @param limits the limits
+     * @return readable representation
+     */
+    static String toString(Object obj, FormatLimits limits) {
+        if (!limits.isLimited()) {
+            return toString(obj);
+        }
+        int end = limits.maxLength > 0 ? limits.maxLength : Integer.MAX_VALUE;
+        StringBuilder builder = new StringBuilder(Math.min(end, 64) + 1);
+        append(obj, builder, limits, end, null);
+        if (builder.length() > end) {
+            builder.setLength(end);
+            builder.append(ELLIPSIS);
+        }
+        return builder.toString();
+    }
+
     static String toString(Object obj) {
         if (obj == null) {
             return "null";
@@ -156,6 +188,217 @@ final class ObjectFormatter {
         seen.remove(array);
     }
 
+    /**
+     * Append the object while the builder is not longer than the end. One character more than the end is appended when something is
+     * cut, so the caller sees it has to add the ellipsis.
+     */
+    private static void append(Object obj, StringBuilder builder, FormatLimits limits, int end, Set<Object> seen) {
+        if (builder.length() > end) {
+            return;
+        }
+        if (obj == null) {
+            builder.append("null");
+            return;
+        }
+        if (obj instanceof CharSequence) {
+            builder.append('"');
+            appendPrintable((CharSequence) obj, builder, end);
+            builder.append('"');
+            return;
+        }
+        Class<?> cls = obj.getClass();
+        if (Byte.class == cls) {
+            appendByte((Byte) obj, builder);
+        } else if (cls.isArray()) {
+            appendArray(obj, builder, limits, end, seen);
+        } else if (obj instanceof Collection) {
+            appendCollection((Collection<?>) obj, builder, limits, end, seen);
+        } else if (obj instanceof Map) {
+            appendMap((Map<?, ?>) obj, builder, limits, end, seen);
+        } else {
+            String string = obj.toString();
+            int room = Math.max(end - builder.length(), 0);
+            if (string != null && string.length() > room) {
+                builder.append(string, 0, room + 1);
+            } else {
+                builder.append(string);
+            }
+        }
+    }
+
+    private static void appendArray(Object array, StringBuilder builder, FormatLimits limits, int end, Set<Object> seen) {
+        if (seen == null) {
+            seen = newSeenSet();
+        }
+        if (!seen.add(array)) {
+            builder.append("[...]");
+            return;
+        }
+        Class<?> componentType = array.getClass().getComponentType();
+        int length = Array.getLength(array);
+        int count = limit(length, limits.maxArrayElements);
+        builder.append('[');
+        int i = 0;
+        for (; i < count && builder.length() <= end; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            if (byte.class == componentType) {
+                appendByte(Array.getByte(array, i), builder);
+            } else if (componentType.isPrimitive()) {
+                builder.append(Array.get(array, i));
+            } else {
+                append(Array.get(array, i), builder, limits, end, seen);
+            }
+        }
+        appendMore(builder, length - i);
+        builder.append(']');
+        seen.remove(array);
+    }
+
+    private static void appendCollection(Collection<?> collection, StringBuilder builder, FormatLimits limits, int end, Set<Object> seen) {
+        if (seen == null) {
+            seen = newSeenSet();
+        }
+        if (!seen.add(collection)) {
+            builder.append("[...]");
+            return;
+        }
+        int size = collection.size();
+        int count = limit(size, limits.maxCollectionSize);
+        Iterator<?> iterator = collection.iterator();
+        builder.append('[');
+        int i = 0;
+        for (; i < count && iterator.hasNext() && builder.length() <= end; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Object item = iterator.next();
+            if (item == collection) {
+                builder.append("(this Collection)");
+            } else {
+                append(item, builder, limits, end, seen);
+            }
+        }
+        appendMore(builder, size - i);
+        builder.append(']');
+        seen.remove(collection);
+    }
+
+    private static void appendMap(Map<?, ?> map, StringBuilder builder, FormatLimits limits, int end, Set<Object> seen) {
+        if (seen == null) {
+            seen = newSeenSet();
+        }
+        if (!seen.add(map)) {
+            builder.append("{...}");
+            return;
+        }
+        int size = map.size();
+        int count = limit(size, limits.maxCollectionSize);
+        Iterator<? extends Map.Entry<?, ?>> iterator = map.entrySet().iterator();
+        builder.append('{');
+        int i = 0;
+        for (; i < count && iterator.hasNext() && builder.length() <= end; i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            Map.Entry<?, ?> entry = iterator.next();
+            appendEntryPart(map, entry.getKey(), builder, limits, end, seen);
+            builder.append('=');
+            appendEntryPart(map, entry.getValue(), builder, limits, end, seen);
+        }
+        appendMore(builder, size - i);
+        builder.append('}');
+        seen.remove(map);
+    }
+
+    private static void appendEntryPart(Map<?, ?> map, Object part, StringBuilder builder, FormatLimits limits, int end, Set<Object> seen) {
+        if (part == map) {
+            builder.append("(this Map)");
+        } else {
+            append(part, builder, limits, end, seen);
+        }
+    }
+
+    /**
+     * The containers being formatted, compared by identity, the equals() and hashCode() of a collection walk its elements
+     */
+    private static Set<Object> newSeenSet() {
+        return Collections.newSetFromMap(new IdentityHashMap<Object, Boolean>());
+    }
+
+    private static void appendPrintable(CharSequence string, StringBuilder builder, int end) {
+        int length = string.length();
+        for (int i = 0; i < length && builder.length() <= end; i++) {
+            char c = string.charAt(i);
+            switch (Character.getType(c)) {
+                case Character.CONTROL:
+                case Character.FORMAT:
+                case Character.PRIVATE_USE:
+                case Character.UNASSIGNED:
+                    appendEscaped(c, builder);
+                    break;
+                case Character.SURROGATE:
+                    if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(string.charAt(i + 1))) {
+                        builder.append(c);
+                        builder.append(string.charAt(++i));
+                    } else {
+                        appendEscaped(c, builder);
+                    }
+                    break;
+                default:
+                    builder.append(c);
+                    break;
+            }
+        }
+    }
+
+    private static void appendEscaped(char c, StringBuilder builder) {
+        switch (c) {
+            case '\n':
+                builder.append("\\n");
+                break;
+            case '\r':
+                builder.append("\\r");
+                break;
+            case '\t':
+                builder.append("\\t");
+                break;
+            case '\f':
+                builder.append("\\f");
+                break;
+            case '\b':
+                builder.append("\\b");
+                break;
+            default:
+                builder.append("\\u");
+                builder.append(HEX_DIGITS[(c >> 12) & 0xF]);
+                builder.append(HEX_DIGITS[(c >> 8) & 0xF]);
+                builder.append(HEX_DIGITS[(c >> 4) & 0xF]);
+                builder.append(HEX_DIGITS[c & 0xF]);
+                break;
+        }
+    }
+
+    private static void appendByte(byte b, StringBuilder builder) {
+        builder.append("0x");
+        builder.append(HEX_DIGITS[(b >> 4) & 0xF]);
+        builder.append(HEX_DIGITS[b & 0xF]);
+    }
+
+    private static void appendMore(StringBuilder builder, int more) {
+        if (more > 0) {
+            builder.append(", ");
+            builder.append(ELLIPSIS);
+            builder.append(more);
+            builder.append(MORE);
+        }
+    }
+
+    private static int limit(int size, int max) {
+        return max > 0 && max < size ? max : size;
+    }
+
     private ObjectFormatter() {
         throw new AssertionError("No instances.");
     }
@@ -0,0 +1,41 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * Rate limit policy: messages per second on average plus a burst of messages allowed at once.
+ *
+ * @see Log#setRateLimit(int, RateLimit)
+ * @see Log#setCallSiteRateLimit(RateLimit)
+ * @see Log#setFileRateLimit(String, RateLimit)
+ * @see Log#setTagRateLimit(String, RateLimit)
+ */
+public final class RateLimit {
+
+    private final double messagesPerSecond;
+    private final int burst;
+
+    /**
+     * @param messagesPerSecond average allowed messages per second, more than 0
+     * @param burst             messages allowed at once after a quiet period, at least 1
+     */
+    public RateLimit(double messagesPerSecond, int burst) {
+        if (!(messagesPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Wrong rate limit " + messagesPerSecond + "/s, burst " + burst);
+        }
+        this.messagesPerSecond = messagesPerSecond;
+        this.burst = burst;
+    }
+
+    public double getMessagesPerSecond() {
+        return messagesPerSecond;
+    }
+
+    public int getBurst() {
+        return burst;
+    }
+
+    @Override
+    public String toString() {
+        return messagesPerSecond + "/s, burst " + burst;
+    }
+
+}
@@ -0,0 +1,302 @@
+package ua.at.tsvetkov.util;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Enforces the {@link RateLimit} policies with token buckets. A bucket keeps only the time at which it becomes full again and takes a
+ * token with a single compare-and-set, so there is no lock on the logging path. Every call site has its own bucket: the
+ * {@link CallSite} of a woven call, otherwise the tag, which holds the source line unless a {@link Logger} has a fixed tag.
+ * <p>
+ * The level limits are peeked before the stack is captured for the tag. The tokens of all the policies are taken together after the
+ * tag is known, before any formatting, so a message dropped by one policy doesn't use up the others. The dropped messages are counted
+ * and reported once a second.
+ */
+final class RateLimiter {
+
+    /**
+     * Max call site buckets, a bound for the tags made of the logged objects. Then an idle bucket is replaced, or the new call sites
+     * share one bucket
+     */
+    static final int MAX_CALL_SITES = 1024;
+
+    private static final long REPORT_PERIOD_MILLIS = 1000;
+    private static final String LOCATION = "RateLimiter";
+
+    private static final Bucket[] levelBuckets = new Bucket[android.util.Log.ASSERT + 1];
+    private static final Map<String, Bucket> fileBuckets = new ConcurrentHashMap<>();
+    private static final Map<String, Bucket> tagBuckets = new ConcurrentHashMap<>();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static volatile CallSiteBuckets callSiteBuckets = null;
+    private static volatile boolean hasLevelLimits = false;
+    private static volatile boolean hasTagLimits = false;
+    private static ScheduledFuture<?> reporter = null;
+    private static long reported = 0;
+
+    private RateLimiter() {
+
+    }
+
+    static synchronized void setLevelLimit(int level, RateLimit limit) {
+        if (level < android.util.Log.VERBOSE || level > android.util.Log.ASSERT) {
+            throw new IllegalArgumentException("level must be from VERBOSE to ASSERT, found " + level);
+        }
+        levelBuckets[level] = limit == null ? null : new Bucket(limit);
+        boolean hasLimits = false;
+        for (Bucket bucket : levelBuckets) {
+            hasLimits |= bucket != null;
+        }
+        hasLevelLimits = hasLimits;
+        updateReporter();
+    }
+
+    static synchronized void setCallSiteLimit(RateLimit limit) {
+        callSiteBuckets = limit == null ? null : new CallSiteBuckets(limit);
+        updateReporter();
+    }
+
+    static synchronized void setFileLimit(String fileName, RateLimit limit) {
+        setLimit(fileBuckets, fileName, limit);
+    }
+
+    static synchronized void setTagLimit(String tag, RateLimit limit) {
+        setLimit(tagBuckets, tag, limit);
+    }
+
+    static long getDropped() {
+        return dropped.get();
+    }
+
+    /**
+     * Level limit, checked before the tag is created. Nothing is taken, see {@link #tryAcquire(int, Object, String)}.
+     *
+     * @param priority the log level
+     * @return false if the message must be dropped
+     */
+    static boolean hasToken(int priority) {
+        if (!hasLevelLimits) {
+            return true;
+        }
+        Bucket bucket = levelBuckets[priority];
+        if (bucket == null || bucket.hasToken(System.nanoTime())) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Level, call site, file and tag limits. The tokens are taken only if every policy has one.
+     *
+     * @param priority the log level
+     * @param site     the call site, a {@link CallSite} or the tag
+     * @param tag      the tag, contains the call site like "(Boo.java:14) isNeed"
+     * @return false if the message must be dropped
+     */
+    static boolean tryAcquire(int priority, Object site, String tag) {
+        if (!hasLevelLimits && !hasTagLimits) {
+            return true;
+        }
+        long now = System.nanoTime();
+        Bucket levelBucket = hasLevelLimits ? levelBuckets[priority] : null;
+        Bucket siteBucket = null;
+        Bucket fileBucket = null;
+        Bucket tagBucket = null;
+        if (hasTagLimits) {
+            CallSiteBuckets sites = callSiteBuckets;
+            if (sites != null) {
+                siteBucket = sites.get(site, now);
+            }
+            if (!fileBuckets.isEmpty()) {
+                fileBucket = findFileBucket(tag);
+            }
+            if (!tagBuckets.isEmpty()) {
+                tagBucket = findTagBucket(tag);
+            }
+        }
+        boolean isAvailable = hasToken(levelBucket, now) && hasToken(siteBucket, now) && hasToken(fileBucket, now) && hasToken(tagBucket, now);
+        // Another thread may take the last token in between, then the message is dropped as well
+        if (isAvailable && take(levelBucket, now) && take(siteBucket, now) && take(fileBucket, now) && take(tagBucket, now)) {
+            return true;
+        }
+        dropped.incrementAndGet();
+        return false;
+    }
+
+    private static void setLimit(Map<String, Bucket> buckets, String key, RateLimit limit) {
+        if (limit == null) {
+            buckets.remove(key);
+        } else {
+            buckets.put(key, new Bucket(limit));
+        }
+        updateReporter();
+    }
+
+    private static Bucket findFileBucket(String tag) {
+        int start = tag.lastIndexOf('(') + 1;
+        for (Map.Entry<String, Bucket> entry : fileBuckets.entrySet()) {
+            String fileName = entry.getKey();
+            if (tag.startsWith(fileName, start) && tag.startsWith(":", start + fileName.length())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * The tag policies match the tag without the prefix, the stamp and the alignment spaces, like "Network" of Log.forTag("Network")
+     */
+    private static Bucket findTagBucket(String tag) {
+        int start = tag.startsWith(Format.PREFIX_MAIN_STRING) ? Format.PREFIX_MAIN_STRING.length() : 0;
+        String stampPrefix = Log.config.stampPrefix;
+        if (stampPrefix.length() > 0 && tag.startsWith(stampPrefix, start)) {
+            start += stampPrefix.length();
+        }
+        int end = tag.length();
+        while (end > start && tag.charAt(end - 1) == Format.SPACE) {
+            end--;
+        }
+        for (Map.Entry<String, Bucket> entry : tagBuckets.entrySet()) {
+            String key = entry.getKey();
+            if (key.length() == end - start && tag.startsWith(key, start)) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasToken(Bucket bucket, long now) {
+        return bucket == null || bucket.hasToken(now);
+    }
+
+    private static boolean take(Bucket bucket, long now) {
+        return bucket == null || bucket.tryAcquire(now);
+    }
+
+    private static void updateReporter() {
+        hasTagLimits = callSiteBuckets != null || !fileBuckets.isEmpty() || !tagBuckets.isEmpty();
+        boolean isNeeded = hasLevelLimits || hasTagLimits;
+        if (isNeeded && reporter == null) {
+            reporter = LogScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    report();
+                }
+            }, REPORT_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+        } else if (!isNeeded && reporter != null) {
+            reporter.cancel(false);
+            reporter = null;
+            report();
+        }
+    }
+
+    private static synchronized void report() {
+        long count = dropped.get();
+        if (count > reported) {
+            String message = (count - reported) + " messages dropped by the rate limit";
+            reported = count;
+            if (Log.config.isDisabled) {
+                return;
+            }
+            Log.print(android.util.Log.WARN, Format.getTag(LOCATION), Format.getFormattedMessage(message));
+        }
+    }
+
+    /**
+     * Token bucket of one policy. Holds the time at which the bucket is full again; taking a token moves it forward by one interval, a
+     * token is available while the time is less than the burst ahead of now.
+     */
+    private static final class Bucket {
+
+        final long intervalNanos;
+        final long capacityNanos;
+        final AtomicLong fullAt;
+
+        Bucket(RateLimit limit) {
+            intervalNanos = Math.max((long) (TimeUnit.SECONDS.toNanos(1) / limit.getMessagesPerSecond()), 1);
+            capacityNanos = intervalNanos * limit.getBurst();
+            fullAt = new AtomicLong(System.nanoTime());
+        }
+
+        boolean isFull(long now) {
+            return fullAt.get() - now <= 0;
+        }
+
+        boolean hasToken(long now) {
+            return next(fullAt.get(), now) - now <= capacityNanos;
+        }
+
+        boolean tryAcquire(long now) {
+            while (true) {
+                long time = fullAt.get();
+                long next = next(time, now);
+                if (next - now > capacityNanos) {
+                    return false;
+                }
+                if (fullAt.compareAndSet(time, next)) {
+                    return true;
+                }
+            }
+        }
+
+        private long next(long time, long now) {
+            return (time - now < 0 ? now : time) + intervalNanos;
+        }
+
+    }
+
+    /**
+     * The buckets of one call site policy, replaced together with the policy.
+     */
+    private static final class CallSiteBuckets {
+
+        final RateLimit limit;
+        final ConcurrentHashMap<Object, Bucket> buckets = new ConcurrentHashMap<>();
+        /**
+         * Shared by the new call sites while all {@link #MAX_CALL_SITES} buckets are in use
+         */
+        final Bucket overflow;
+
+        CallSiteBuckets(RateLimit limit) {
+            this.limit = limit;
+            overflow = new Bucket(limit);
+        }
+
+        Bucket get(Object site, long now) {
+            Bucket bucket = buckets.get(site);
+            if (bucket == null) {
+                if (buckets.size() >= MAX_CALL_SITES && !removeFull(now)) {
+                    return overflow;
+                }
+                bucket = new Bucket(limit);
+                Bucket previous = buckets.putIfAbsent(site, bucket);
+                if (previous != null) {
+                    bucket = previous;
+                }
+            }
+            return bucket;
+        }
+
+        /**
+         * A full bucket is the same as a new one, so removing it forgets nothing
+         *
+         * @return false if every bucket is in use
+         */
+        private boolean removeFull(long now) {
+            Iterator<Bucket> iterator = buckets.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().isFull(now)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+    }
+
+}
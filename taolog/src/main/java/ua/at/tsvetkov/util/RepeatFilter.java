@@ -0,0 +1,155 @@
+package ua.at.tsvetkov.util;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Suppresses the same message logged again from the same place (the tag) within a time window. Keeps a small lock-free table of
+ * the recently logged messages indexed by their hash; a repeat only increments a counter, so it costs the stack walk for the tag but
+ * none of the message formatting. The repeats are reported by one summary line when the window closes, either on the next message
+ * landing in the same slot or on the periodic sweep.
+ */
+final class RepeatFilter {
+
+    static final int TABLE_SIZE = 256;
+
+    private static final int CLOSED = Integer.MIN_VALUE;
+    private static final String SUMMARY = "Last message repeated %d times";
+
+    private static final AtomicReferenceArray<Entry> table = new AtomicReferenceArray<>(TABLE_SIZE);
+    private static volatile long windowNanos = 0;
+    private static ScheduledFuture<?> sweeper = null;
+
+    private RepeatFilter() {
+
+    }
+
+    static boolean isEnabled() {
+        return windowNanos > 0;
+    }
+
+    static synchronized void setWindow(long window, TimeUnit unit) {
+        if (sweeper != null) {
+            sweeper.cancel(false);
+            sweeper = null;
+        }
+        long nanos = Math.max(unit.toNanos(window), 0);
+        windowNanos = nanos;
+        sweep(0);
+        if (nanos > 0) {
+            sweeper = LogScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    sweep(windowNanos);
+                }
+            }, nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Check the message and count it if it is a repeat.
+     *
+     * @param priority the log level
+     * @param tag      the tag, identifies the call site
+     * @param message  the not formatted message
+     * @param detail   the title or the throwable description, may be null
+     * @return true if the message must not be logged
+     */
+    static boolean isRepeated(int priority, String tag, String message, String detail) {
+        long window = windowNanos;
+        if (window <= 0) {
+            return false;
+        }
+        int hash = hash(priority, tag, message, detail);
+        int index = (hash ^ (hash >>> 16)) & (TABLE_SIZE - 1);
+        long now = System.nanoTime();
+        Entry entry = table.get(index);
+        if (entry != null && entry.hash == hash && now - entry.startNanos < window && entry.matches(priority, tag, message, detail)
+                && entry.countRepeat()) {
+            return true;
+        }
+        if (table.compareAndSet(index, entry, new Entry(hash, priority, tag, message, detail, now)) && entry != null) {
+            entry.close();
+        }
+        return false;
+    }
+
+    private static void sweep(long window) {
+        long now = System.nanoTime();
+        for (int i = 0; i < TABLE_SIZE; i++) {
+            Entry entry = table.get(i);
+            if (entry != null && now - entry.startNanos >= window && table.compareAndSet(i, entry, null)) {
+                entry.close();
+            }
+        }
+    }
+
+    private static int hash(int priority, String tag, String message, String detail) {
+        int hash = priority;
+        hash = 31 * hash + tag.hashCode();
+        hash = 31 * hash + (message == null ? 0 : message.hashCode());
+        hash = 31 * hash + (detail == null ? 0 : detail.hashCode());
+        return hash;
+    }
+
+    private static boolean equals(String first, String second) {
+        return first == null ? second == null : first.equals(second);
+    }
+
+    private static final class Entry {
+
+        final int hash;
+        final int priority;
+        final String tag;
+        final String message;
+        final String detail;
+        final long startNanos;
+        final AtomicInteger repeats = new AtomicInteger();
+        /**
+         * The {@link LogContext} of the first repeat, the summary is printed by another thread or later
+         */
+        volatile LogContext.Snapshot context;
+
+        Entry(int hash, int priority, String tag, String message, String detail, long startNanos) {
+            this.hash = hash;
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+            this.detail = detail;
+            this.startNanos = startNanos;
+        }
+
+        boolean matches(int priority, String tag, String message, String detail) {
+            return this.priority == priority && this.tag.equals(tag) && RepeatFilter.equals(this.message, message)
+                    && RepeatFilter.equals(this.detail, detail);
+        }
+
+        /**
+         * @return false if the entry is closed
+         */
+        boolean countRepeat() {
+            if (repeats.get() == 0) {
+                context = LogContext.current();
+            }
+            return repeats.incrementAndGet() > 0;
+        }
+
+        /**
+         * Stop counting and log the summary if there were repeats. The repeats counted by a late thread after closing are logged
+         * by that thread as usual messages.
+         */
+        void close() {
+            int count = repeats.getAndSet(CLOSED);
+            if (count > 0) {
+                int summaryPriority = priority == android.util.Log.ASSERT ? android.util.Log.ERROR : priority;
+                String summary = Format.getFormattedMessage(String.format(SUMMARY, count));
+                LogContext.Snapshot snapshot = context;
+                Log.write(summaryPriority, tag, snapshot == null ? summary : snapshot.prefix + summary);
+            }
+        }
+
+    }
+
+}
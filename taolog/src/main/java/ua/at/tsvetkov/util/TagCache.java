@@ -0,0 +1,33 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * The tag of a fixed location, built by {@link Format#getTag(LogConfig, String)} and kept while the {@link LogConfig} is the same. Any
+ * setting change, including the growth of the longest tag for the aligned new lines, creates a new config and so rebuilds the tag.
+ */
+final class TagCache {
+
+    private volatile Entry entry;
+
+    String get(LogConfig config, String location) {
+        Entry cached = entry;
+        if (cached != null && cached.config == config) {
+            return cached.tag;
+        }
+        String tag = Format.getTag(config, location);
+        entry = new Entry(config, tag);
+        return tag;
+    }
+
+    private static final class Entry {
+
+        final LogConfig config;
+        final String tag;
+
+        Entry(LogConfig config, String tag) {
+            this.config = config;
+            this.tag = tag;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package ua.at.tsvetkov.util;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Low overhead profiler built on the {@link ua.at.tsvetkov.annotations.ToLog} methods. Aggregates the self and total time of every
+ * traced call per thread and call chain, and writes them as folded stacks (one "thread;Foo.a;Boo.b 1234" line per chain, self time in
+ * microseconds) that can be rendered by the standard flame graph tools, like flamegraph.pl or speedscope. The tree of a finished thread
+ * is kept until it is written or reset once.
+ */
+public final class ToLogProfiler {
+
+    private static final String CHARSET = "UTF-8";
+
+    private static final List<Root> roots = new CopyOnWriteArrayList<>();
+    private static volatile boolean isEnabled = false;
+    private static ScheduledFuture<?> periodicWriter = null;
+
+    private ToLogProfiler() {
+
+    }
+
+    /**
+     * Is the call tree collected
+     *
+     * @return is enabled
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Collect the call tree of the @ToLog methods. The collected values are kept when disabled.
+     *
+     * @param isEnabled is enabled
+     */
+    public static void setEnabled(boolean isEnabled) {
+        ToLogProfiler.isEnabled = isEnabled;
+        LogAspect.updateTracing();
+    }
+
+    /**
+     * Enable the profiler and rewrite the folded stacks file periodically on a background thread. Replaces the previously started
+     * writer.
+     *
+     * @param file   the folded stacks file
+     * @param period period between writes
+     * @param unit   time unit of the period
+     */
+    public static synchronized void start(final File file, long period, TimeUnit unit) {
+        stop();
+        setEnabled(true);
+        periodicWriter = LogScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    write(file);
+                } catch (IOException e) {
+                    Log.print(android.util.Log.ERROR, Format.getTag("ToLogProfiler"),
+                            Format.getFormattedThrowable(file.getPath(), e));
+                }
+            }
+        }, period, unit);
+    }
+
+    /**
+     * Disable the profiler and stop the periodic writer. The collected values are kept.
+     */
+    public static synchronized void stop() {
+        if (periodicWriter != null) {
+            periodicWriter.cancel(false);
+            periodicWriter = null;
+        }
+        setEnabled(false);
+    }
+
+    /**
+     * Write the folded stacks collected since the start or the last reset. The file is replaced atomically.
+     *
+     * @param file the folded stacks file
+     * @throws IOException if the file can't be written
+     */
+    public static void write(File file) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(tmp), CHARSET));
+        try {
+            writeFolded(writer);
+        } finally {
+            writer.close();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Can't rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * Write the folded stacks collected since the start or the last reset.
+     *
+     * @param writer the output
+     * @throws IOException if the output fails
+     */
+    public static void writeFolded(Writer writer) throws IOException {
+        StringBuilder path = new StringBuilder();
+        for (Root root : roots) {
+            // Checked before writing, a finished thread adds nothing after it
+            boolean isFinished = root.isFinished();
+            path.setLength(0);
+            path.append(root.node.name.replace(';', '_'));
+            for (CallNode child : root.node.children.values()) {
+                writeFolded(child, path, writer);
+            }
+            if (isFinished) {
+                roots.remove(root);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Start collecting from zero.
+     */
+    public static void reset() {
+        for (Root root : roots) {
+            if (root.isFinished()) {
+                roots.remove(root);
+            } else {
+                root.node.reset();
+            }
+        }
+    }
+
+    /**
+     * Called by the thread of the tree
+     */
+    static void register(CallNode root) {
+        roots.add(new Root(Thread.currentThread(), root));
+    }
+
+    private static void writeFolded(CallNode node, StringBuilder path, Writer writer) throws IOException {
+        int length = path.length();
+        path.append(';');
+        path.append(node.name);
+        long selfMicros = TimeUnit.NANOSECONDS.toMicros(node.getSelfNanos());
+        if (selfMicros > 0) {
+            writer.append(path);
+            writer.append(Format.SPACE);
+            writer.append(String.valueOf(selfMicros));
+            writer.append(Format.NL);
+        }
+        for (CallNode child : node.children.values()) {
+            writeFolded(child, path, writer);
+        }
+        path.setLength(length);
+    }
+
+    /**
+     * The call tree of a thread. The thread is held weakly, the tree of a finished thread is dropped when it is written.
+     */
+    private static final class Root {
+
+        final WeakReference<Thread> thread;
+        final CallNode node;
+
+        Root(Thread thread, CallNode node) {
+            this.thread = new WeakReference<>(thread);
+            this.node = node;
+        }
+
+        boolean isFinished() {
+            Thread owner = thread.get();
+            return owner == null || !owner.isAlive();
+        }
+
+    }
+
+}
@@ -0,0 +1,133 @@
+package ua.at.tsvetkov.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Call statistics of the {@link ua.at.tsvetkov.annotations.ToLog} methods: count, errors, total, min, max and latency percentiles with
+ * nanosecond resolution. Disabled by default, enable it with {@link #setEnabled(boolean)}.
+ */
+public final class ToLogStats {
+
+    private static final String TITLE = "@ToLog statistics";
+    private static final String LOCATION = "ToLogStats";
+
+    private static volatile boolean isEnabled = false;
+    private static ScheduledFuture<?> periodicSummary = null;
+
+    private ToLogStats() {
+
+    }
+
+    /**
+     * Is statistics collected for the @ToLog methods. False by default
+     *
+     * @return is enabled
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Collect statistics for the @ToLog methods. The collected values are kept when disabled.
+     *
+     * @param isEnabled is enabled
+     */
+    public static void setEnabled(boolean isEnabled) {
+        ToLogStats.isEnabled = isEnabled;
+        LogAspect.updateTracing();
+    }
+
+    /**
+     * Statistics of every @ToLog method called at least once, the most time consuming first.
+     *
+     * @return list of snapshots
+     */
+    public static List<MethodStats> snapshot() {
+        List<MethodStats> list = new ArrayList<>();
+        for (TracedMethod method : TracedMethod.all()) {
+            MethodTimer timer = method.timer;
+            if (timer != null) {
+                MethodStats stats = timer.snapshot();
+                if (stats.getCount() > 0) {
+                    list.add(stats);
+                }
+            }
+        }
+        Collections.sort(list, new Comparator<MethodStats>() {
+            @Override
+            public int compare(MethodStats first, MethodStats second) {
+                long diff = second.getTotalNanos() - first.getTotalNanos();
+                return diff > 0 ? 1 : (diff < 0 ? -1 : 0);
+            }
+        });
+        return list;
+    }
+
+    /**
+     * Clear the collected statistics.
+     */
+    public static void reset() {
+        for (TracedMethod method : TracedMethod.all()) {
+            MethodTimer timer = method.timer;
+            if (timer != null) {
+                timer.reset();
+            }
+        }
+    }
+
+    /**
+     * Logged the statistics summary. Each method in new line.
+     */
+    public static void printSummary() {
+        List<MethodStats> list = snapshot();
+        StringBuilder sb = new StringBuilder();
+        if (list.isEmpty()) {
+            sb.append("No calls");
+        }
+        for (MethodStats stats : list) {
+            sb.append(stats.toString());
+            sb.append(Format.NL);
+        }
+        Log.write(android.util.Log.INFO, Format.getTag(LOCATION), Format.getFormattedMessage(sb.toString(), TITLE));
+    }
+
+    /**
+     * Logged the statistics summary periodically on a background thread. Replaces the previously started one.
+     *
+     * @param period period between summaries
+     * @param unit   time unit of the period
+     */
+    public static synchronized void startPeriodicSummary(long period, TimeUnit unit) {
+        stopPeriodicSummary();
+        periodicSummary = LogScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                printSummary();
+            }
+        }, period, unit);
+    }
+
+    /**
+     * Stop the periodic summary.
+     */
+    public static synchronized void stopPeriodicSummary() {
+        if (periodicSummary != null) {
+            periodicSummary.cancel(false);
+            periodicSummary = null;
+        }
+    }
+
+    static void record(TracedMethod method, long nanos, boolean isError) {
+        MethodTimer timer = method.timer;
+        if (timer == null) {
+            timer = method.createTimer();
+        }
+        timer.record(nanos, isError);
+    }
+
+}
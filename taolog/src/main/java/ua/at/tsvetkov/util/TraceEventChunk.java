@@ -0,0 +1,43 @@
+package ua.at.tsvetkov.util;
+
+/**
+ * A fixed-size block of finished @ToLog calls recorded by one thread, waiting to be written by {@link TraceEventExporter}.
+ */
+final class TraceEventChunk {
+
+    static final int CAPACITY = 256;
+
+    final int tid;
+    final String threadName;
+    final String[] names = new String[CAPACITY];
+    final long[] startMicros = new long[CAPACITY];
+    final long[] durationMicros = new long[CAPACITY];
+    final String[][] argNames = new String[CAPACITY][];
+    final String[][] argValues = new String[CAPACITY][];
+    /**
+     * {@link LogContext} of the calls, null if empty
+     */
+    final LogContext.Snapshot[] contexts = new LogContext.Snapshot[CAPACITY];
+    int count;
+
+    TraceEventChunk(int tid, String threadName) {
+        this.tid = tid;
+        this.threadName = threadName;
+    }
+
+    boolean isFull() {
+        return count == CAPACITY;
+    }
+
+    void add(String name, long startNanos, long durationNanos, String[] parameterNames, String[] parameterValues,
+             LogContext.Snapshot context) {
+        names[count] = name;
+        startMicros[count] = startNanos / 1000;
+        durationMicros[count] = durationNanos / 1000;
+        argNames[count] = parameterNames;
+        argValues[count] = parameterValues;
+        contexts[count] = context;
+        count++;
+    }
+
+}
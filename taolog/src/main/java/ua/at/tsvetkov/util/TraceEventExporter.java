@@ -0,0 +1,342 @@
+package ua.at.tsvetkov.util;
+
+import android.os.Process;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exports every finished {@link ua.at.tsvetkov.annotations.ToLog} call as a Chrome trace event ("ph":"X", microsecond timestamp and
+ * duration, thread id and name, the arguments as key-value pairs). The JSON file can be opened in Perfetto UI or chrome://tracing to
+ * see a timeline of your own code without an attached profiler.
+ * <p>
+ * The calls are buffered in per-thread chunks and written by the logger background thread once a second. At most
+ * {@link #MAX_QUEUED_CHUNKS} full chunks wait for the writer, the newer ones are dropped and counted. The chunk of a finished thread is
+ * released after it is written, {@link #stop()} releases all of them. The arguments without a @ToLog limit are cut to 256 characters
+ * and 16 elements.
+ */
+public final class TraceEventExporter {
+
+    static final int MAX_QUEUED_CHUNKS = 64;
+
+    private static final long FLUSH_PERIOD_MILLIS = 1000;
+    private static final String CHARSET = "UTF-8";
+    private static final String CATEGORY = "ToLog";
+    /**
+     * Used instead of the unlimited @ToLog limits, the arguments wait in memory for the writer
+     */
+    private static final FormatLimits ARGUMENT_CAPS = new FormatLimits(256, 16, 16);
+
+    private static final List<Holder> holders = new CopyOnWriteArrayList<>();
+    private static final Set<Integer> namedThreads = new HashSet<>();
+    private static final ThreadLocal<Holder> CHUNKS = new ThreadLocal<Holder>() {
+        @Override
+        protected Holder initialValue() {
+            Holder holder = new Holder(Thread.currentThread(), Process.myTid());
+            synchronized (TraceEventExporter.class) {
+                // Not registered after stop(), a racing call is dropped
+                if (isEnabled) {
+                    holders.add(holder);
+                } else {
+                    holder.detach();
+                }
+            }
+            return holder;
+        }
+    };
+    private static final ArrayBlockingQueue<TraceEventChunk> queue = new ArrayBlockingQueue<>(MAX_QUEUED_CHUNKS);
+    private static final AtomicLong droppedEvents = new AtomicLong();
+
+    private static volatile boolean isEnabled = false;
+    private static Writer writer = null;
+    private static ScheduledFuture<?> flusher = null;
+    private static boolean isFirstEvent;
+    private static int pid;
+
+    private TraceEventExporter() {
+
+    }
+
+    /**
+     * Is the @ToLog calls exported
+     *
+     * @return is enabled
+     */
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Start exporting the @ToLog calls to the file. Stops the previously started export.
+     *
+     * @param file the JSON file, replaced if exists
+     * @throws IOException if the file can't be created
+     */
+    public static synchronized void start(File file) throws IOException {
+        stop();
+        writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET));
+        writer.write('[');
+        isFirstEvent = true;
+        pid = Process.myPid();
+        namedThreads.clear();
+        droppedEvents.set(0);
+        isEnabled = true;
+        LogAspect.updateTracing();
+        flusher = LogScheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (IOException e) {
+                    Log.print(android.util.Log.ERROR, Format.getTag("TraceEventExporter"),
+                            Format.getFormattedThrowable(e));
+                }
+            }
+        }, FLUSH_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Write the buffered calls and close the file.
+     *
+     * @throws IOException if the file can't be written
+     */
+    public static synchronized void stop() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        isEnabled = false;
+        LogAspect.updateTracing();
+        flusher.cancel(false);
+        flusher = null;
+        try {
+            flush();
+            writer.write("\n]\n");
+        } finally {
+            writer.close();
+            writer = null;
+            for (Holder holder : holders) {
+                holder.detach();
+            }
+            holders.clear();
+            queue.clear();
+        }
+    }
+
+    /**
+     * Number of the calls which were not exported because the writer did not keep up
+     *
+     * @return dropped calls count
+     */
+    public static long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    static void record(TracedMethod method, long startNanos, long durationNanos, Object[] parameterValues) {
+        String[] values = null;
+        if (parameterValues != null && parameterValues.length > 0) {
+            values = new String[parameterValues.length];
+            FormatLimits limits = method.getLimits(ARGUMENT_CAPS);
+            for (int i = 0; i < parameterValues.length; i++) {
+                values[i] = ObjectFormatter.toString(parameterValues[i], limits);
+            }
+        }
+        LogContext.Snapshot context = LogContext.current();
+        Holder holder = CHUNKS.get();
+        if (holder.isDetached) {
+            CHUNKS.remove();
+            if (!isEnabled) {
+                return;
+            }
+            holder = CHUNKS.get();
+        }
+        holder.add(method, startNanos, durationNanos, values, context);
+    }
+
+    private static synchronized void flush() throws IOException {
+        if (writer == null) {
+            return;
+        }
+        List<TraceEventChunk> chunks = new ArrayList<>();
+        queue.drainTo(chunks);
+        for (Holder holder : holders) {
+            // Checked before taking the chunk, a finished thread adds nothing after it
+            boolean isFinished = holder.isFinished();
+            TraceEventChunk chunk = holder.take();
+            if (chunk != null) {
+                chunks.add(chunk);
+            }
+            if (isFinished) {
+                holders.remove(holder);
+                holder.detach();
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        for (TraceEventChunk chunk : chunks) {
+            if (namedThreads.add(chunk.tid)) {
+                sb.setLength(0);
+                sb.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":").append(pid);
+                sb.append(",\"tid\":").append(chunk.tid);
+                sb.append(",\"args\":{\"name\":");
+                appendQuoted(sb, chunk.threadName);
+                sb.append("}}");
+                writeEvent(sb);
+            }
+            for (int i = 0; i < chunk.count; i++) {
+                sb.setLength(0);
+                sb.append("{\"name\":");
+                appendQuoted(sb, chunk.names[i]);
+                sb.append(",\"cat\":\"").append(CATEGORY);
+                sb.append("\",\"ph\":\"X\",\"ts\":").append(chunk.startMicros[i]);
+                sb.append(",\"dur\":").append(chunk.durationMicros[i]);
+                sb.append(",\"pid\":").append(pid);
+                sb.append(",\"tid\":").append(chunk.tid);
+                String[] names = chunk.argNames[i];
+                String[] values = chunk.argValues[i];
+                LogContext.Snapshot context = chunk.contexts[i];
+                if (values != null || context != null) {
+                    sb.append(",\"args\":{");
+                    int count = 0;
+                    if (values != null) {
+                        for (int j = 0; j < values.length; j++, count++) {
+                            if (count > 0) {
+                                sb.append(',');
+                            }
+                            appendQuoted(sb, names[j]);
+                            sb.append(':');
+                            appendQuoted(sb, values[j]);
+                        }
+                    }
+                    if (context != null) {
+                        for (int j = 0; j < context.size(); j++, count++) {
+                            if (count > 0) {
+                                sb.append(',');
+                            }
+                            appendQuoted(sb, context.getKey(j));
+                            sb.append(':');
+                            appendQuoted(sb, context.getValue(j));
+                        }
+                    }
+                    sb.append('}');
+                }
+                sb.append('}');
+                writeEvent(sb);
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeEvent(StringBuilder event) throws IOException {
+        if (isFirstEvent) {
+            isFirstEvent = false;
+            writer.write('\n');
+        } else {
+            writer.write(",\n");
+        }
+        writer.append(event);
+    }
+
+    private static void appendQuoted(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00");
+                        sb.append(Character.forDigit(c >> 4, 16));
+                        sb.append(Character.forDigit(c & 0xF, 16));
+                    } else {
+                        sb.append(c);
+                    }
+                    break;
+            }
+        }
+        sb.append('"');
+    }
+
+    /**
+     * The chunk being filled by one thread. The thread is held weakly, a detached holder is not written anymore and is replaced on the
+     * next call of its thread.
+     */
+    private static final class Holder {
+
+        private final WeakReference<Thread> thread;
+        private final int tid;
+        private final String threadName;
+        private TraceEventChunk chunk;
+        volatile boolean isDetached;
+
+        Holder(Thread thread, int tid) {
+            this.thread = new WeakReference<>(thread);
+            this.tid = tid;
+            threadName = thread.getName();
+            chunk = new TraceEventChunk(tid, threadName);
+        }
+
+        synchronized void add(TracedMethod method, long startNanos, long durationNanos, String[] values, LogContext.Snapshot context) {
+            if (isDetached) {
+                return;
+            }
+            chunk.add(method.fullName, startNanos, durationNanos, method.parameterNames, values, context);
+            if (chunk.isFull()) {
+                if (!queue.offer(chunk)) {
+                    droppedEvents.addAndGet(chunk.count);
+                }
+                chunk = new TraceEventChunk(tid, threadName);
+            }
+        }
+
+        /**
+         * @return the recorded calls or null if none
+         */
+        synchronized TraceEventChunk take() {
+            if (isDetached || chunk.count == 0) {
+                return null;
+            }
+            TraceEventChunk taken = chunk;
+            chunk = new TraceEventChunk(tid, threadName);
+            return taken;
+        }
+
+        synchronized void detach() {
+            isDetached = true;
+            chunk = null;
+        }
+
+        boolean isFinished() {
+            Thread owner = thread.get();
+            return owner == null || !owner.isAlive();
+        }
+
+    }
+
+}
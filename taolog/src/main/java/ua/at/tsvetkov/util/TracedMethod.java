@@ -0,0 +1,240 @@
+package ua.at.tsvetkov.util;
+
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.Signature;
+import org.aspectj.lang.reflect.CodeSignature;
+import org.aspectj.lang.reflect.ConstructorSignature;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.aspectj.lang.reflect.SourceLocation;
+
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import ua.at.tsvetkov.annotations.ToLog;
+
+/**
+ * Everything {@link LogAspect} needs to know about a traced method or constructor that does not change between calls. Resolved once per
+ * join point from the static metadata woven by AspectJ, so a traced call never walks the stack to find out where it is.
+ */
+final class TracedMethod {
+
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private static final ConcurrentHashMap<JoinPoint.StaticPart, TracedMethod> CACHE = new ConcurrentHashMap<>();
+
+    final Class<?> declaringType;
+    final String name;
+    /**
+     * Class and method name, like "Boo.isNeed"
+     */
+    final String fullName;
+    /**
+     * Systrace section name, the full name cut to the Trace limit
+     */
+    final String section;
+    final String[] parameterNames;
+    final boolean hasReturnType;
+    /**
+     * Source link and method name, like "(Boo.java:14) isNeed". The prefix and stamp are added by {@link #getTag(LogConfig)}
+     */
+    final String location;
+    private final TagCache tagCache = new TagCache();
+    /**
+     * Null when every call is logged
+     */
+    final CallSampler sampler;
+    /**
+     * Negative when the global threshold is used
+     */
+    final long thresholdNanos;
+    /**
+     * Null when the global limits are used
+     */
+    final FormatLimits limits;
+    private FormatLimits completedLimits;
+    private FormatLimits cappedLimits;
+    volatile MethodTimer timer;
+
+    private TracedMethod(JoinPoint.StaticPart staticPart) {
+        Signature signature = staticPart.getSignature();
+        declaringType = signature.getDeclaringType();
+        String methodName = signature.getName();
+        if (methodName.contains("<init>")) {
+            name = "<init " + declaringType.getSimpleName() + '>';
+        } else {
+            name = methodName;
+        }
+        String className = declaringType.getName();
+        fullName = className.substring(className.lastIndexOf('.') + 1) + '.' + methodName;
+        section = fullName.length() > MAX_SECTION_NAME_LENGTH ? fullName.substring(0, MAX_SECTION_NAME_LENGTH) : fullName;
+        if (signature instanceof CodeSignature) {
+            parameterNames = ((CodeSignature) signature).getParameterNames();
+        } else {
+            parameterNames = new String[0];
+        }
+        hasReturnType = signature instanceof MethodSignature
+                && ((MethodSignature) signature).getReturnType() != void.class;
+
+        StringBuilder sb = new StringBuilder();
+        SourceLocation sourceLocation = staticPart.getSourceLocation();
+        if (sourceLocation != null) {
+            Format.addClassLink(sb, sourceLocation.getFileName(), sourceLocation.getLine());
+        } else {
+            Format.addClassLink(sb, declaringType.getSimpleName() + Format.JAVA, 0);
+        }
+        sb.append(methodName);
+        location = sb.toString();
+
+        int sampleEvery = 1;
+        int maxPerSecond = 0;
+        long thresholdMillis = -1;
+        long thresholdMicros = -1;
+        int maxLength = -1;
+        int maxArrayElements = -1;
+        int maxCollectionSize = -1;
+        for (ToLog annotation : findAnnotations(signature)) {
+            if (annotation.sampleEvery() != 1) {
+                sampleEvery = annotation.sampleEvery();
+            }
+            if (annotation.maxPerSecond() != 0) {
+                maxPerSecond = annotation.maxPerSecond();
+            }
+            // The two thresholds are one setting, a method with either of them replaces both of the class
+            if (annotation.thresholdMillis() >= 0 || annotation.thresholdMicros() >= 0) {
+                thresholdMillis = annotation.thresholdMillis();
+                thresholdMicros = annotation.thresholdMicros();
+            }
+            if (annotation.maxLength() >= 0) {
+                maxLength = annotation.maxLength();
+            }
+            if (annotation.maxArrayElements() >= 0) {
+                maxArrayElements = annotation.maxArrayElements();
+            }
+            if (annotation.maxCollectionSize() >= 0) {
+                maxCollectionSize = annotation.maxCollectionSize();
+            }
+        }
+        if (sampleEvery > 1 || maxPerSecond > 0) {
+            sampler = new CallSampler(sampleEvery, maxPerSecond);
+        } else {
+            sampler = null;
+        }
+        if (thresholdMillis >= 0) {
+            thresholdNanos = TimeUnit.MILLISECONDS.toNanos(thresholdMillis);
+        } else if (thresholdMicros >= 0) {
+            thresholdNanos = TimeUnit.MICROSECONDS.toNanos(thresholdMicros);
+        } else {
+            thresholdNanos = -1;
+        }
+        if (maxLength >= 0 || maxArrayElements >= 0 || maxCollectionSize >= 0) {
+            limits = new FormatLimits(maxLength, maxArrayElements, maxCollectionSize);
+        } else {
+            limits = null;
+        }
+    }
+
+    static TracedMethod get(JoinPoint.StaticPart staticPart) {
+        TracedMethod method = CACHE.get(staticPart);
+        if (method == null) {
+            method = new TracedMethod(staticPart);
+            TracedMethod previous = CACHE.putIfAbsent(staticPart, method);
+            if (previous != null) {
+                method = previous;
+            }
+        }
+        return method;
+    }
+
+    /**
+     * @return {@link CallSampler#NOT_SAMPLED} if this call must not be logged, otherwise the number of calls skipped since the previous
+     * logged one
+     */
+    long sample() {
+        return sampler == null ? 0 : sampler.sample();
+    }
+
+    /**
+     * @return the tag of the method, built once per config
+     */
+    String getTag(LogConfig config) {
+        return tagCache.get(config, location);
+    }
+
+    /**
+     * @return minimal duration of a logged call
+     */
+    long getThresholdNanos() {
+        return thresholdNanos >= 0 ? thresholdNanos : Log.config.toLogThresholdNanos;
+    }
+
+    /**
+     * @return limits for formatting the arguments and the result
+     */
+    FormatLimits getLimits() {
+        FormatLimits defaults = Log.config.toLogLimits;
+        if (limits == null) {
+            return defaults;
+        }
+        if (limits.isComplete()) {
+            return limits;
+        }
+        FormatLimits completed = completedLimits;
+        if (completed == null || completed.defaults != defaults) {
+            completed = limits.withDefaults(defaults);
+            completedLimits = completed;
+        }
+        return completed;
+    }
+
+    /**
+     * @param caps the values used instead of the unlimited ones
+     * @return {@link #getLimits()} without unlimited values
+     */
+    FormatLimits getLimits(FormatLimits caps) {
+        FormatLimits limits = getLimits();
+        FormatLimits capped = cappedLimits;
+        if (capped == null || capped.uncapped != limits) {
+            capped = limits.withCaps(caps);
+            cappedLimits = capped;
+        }
+        return capped;
+    }
+
+    static Collection<TracedMethod> all() {
+        return CACHE.values();
+    }
+
+    synchronized MethodTimer createTimer() {
+        if (timer == null) {
+            timer = new MethodTimer(fullName);
+        }
+        return timer;
+    }
+
+    /**
+     * @return the class annotation and then the method one, the set attributes of the later override the earlier
+     */
+    private List<ToLog> findAnnotations(Signature signature) {
+        List<ToLog> annotations = new ArrayList<>(2);
+        ToLog classAnnotation = declaringType.getAnnotation(ToLog.class);
+        if (classAnnotation != null) {
+            annotations.add(classAnnotation);
+        }
+        AnnotatedElement element = null;
+        if (signature instanceof MethodSignature) {
+            element = ((MethodSignature) signature).getMethod();
+        } else if (signature instanceof ConstructorSignature) {
+            element = ((ConstructorSignature) signature).getConstructor();
+        }
+        ToLog annotation = element == null ? null : element.getAnnotation(ToLog.class);
+        if (annotation != null) {
+            annotations.add(annotation);
+        }
+        return annotations;
+    }
+
+}